@@ -0,0 +1,54 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.algorithm.RSACipher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RSA/ECB/PKCS1Padding caps the payload at modulus size minus 11 bytes, so
+ * sizes stop at 190.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AsymmetricCipherBenchmark {
+
+    @Param({"2048", "4096"})
+    public int keySize;
+
+    @Param({"16", "64", "190"})
+    public int size;
+
+    private RSACipher cipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setup() throws Exception {
+        cipher = new RSACipher(keySize);
+        cipher.generateKeyPair(keySize);
+        plaintext = Payloads.random(size);
+        ciphertext = cipher.encrypt(plaintext, cipher.getPublicKey());
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return cipher.encrypt(plaintext, cipher.getPublicKey());
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return cipher.decrypt(ciphertext, cipher.getPrivateKey());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object generateKeyPair() throws Exception {
+        return new RSACipher(keySize).generateKeyPair(keySize);
+    }
+}
@@ -0,0 +1,35 @@
+package com.inferno.crypto.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of {@code benchmarks/target/benchmarks.jar}. Takes the usual JMH
+ * command line and always attaches the GC profiler, so every result carries
+ * its allocation rate ({@code gc.alloc.rate.norm} = bytes allocated per op).
+ *
+ * <pre>
+ * mvn -B package -DskipTests
+ * java -jar benchmarks/target/benchmarks.jar SymmetricCipher -p size=4096 -t 8
+ * java -jar benchmarks/target/benchmarks.jar -l
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("-l") || Arrays.asList(args).contains("-h")) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
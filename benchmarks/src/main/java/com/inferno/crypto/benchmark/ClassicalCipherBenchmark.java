@@ -0,0 +1,66 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.algorithm.CaesarCipher;
+import com.inferno.crypto.algorithm.ClassicalCipher;
+import com.inferno.crypto.algorithm.SubstitutionCipher;
+import com.inferno.crypto.algorithm.TranspositionCipher;
+import com.inferno.crypto.algorithm.VigenereCipher;
+import com.inferno.crypto.algorithm.XORCipher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default sizes stop at 1 MB because the string-based Vigenere encoder is
+ * quadratic; pass {@code -p size=268435456} to go further.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ClassicalCipherBenchmark {
+
+    @Param({"Caesar", "Vigenere", "Substitution", "Transposition", "XOR"})
+    public String cipherName;
+
+    @Param({"16", "64", "1024", "4096", "65536", "1048576"})
+    public int size;
+
+    private ClassicalCipher cipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (cipherName) {
+            case "Caesar":
+                cipher = new CaesarCipher(7);
+                break;
+            case "Vigenere":
+                cipher = new VigenereCipher("INFERNO");
+                break;
+            case "Substitution":
+                cipher = new SubstitutionCipher(SubstitutionCipher.generateRandomMap());
+                break;
+            case "Transposition":
+                cipher = new TranspositionCipher(5);
+                break;
+            default:
+                cipher = new XORCipher(Payloads.random(32));
+        }
+        plaintext = Payloads.text(size);
+        ciphertext = cipher.encrypt(plaintext, null);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return cipher.encrypt(plaintext, null);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return cipher.decrypt(ciphertext, null);
+    }
+}
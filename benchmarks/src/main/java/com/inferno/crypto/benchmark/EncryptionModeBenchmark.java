@@ -0,0 +1,55 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.factory.AlgorithmFactory;
+import com.inferno.crypto.mode.EncryptionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class EncryptionModeBenchmark {
+
+    // GCM refuses to encrypt twice in a row under one key/IV, so rotate IVs.
+    private static final int IV_ROTATION = 8;
+
+    @Param({"ECB", "CBC", "GCM"})
+    public String mode;
+
+    @Param({"16", "64", "1024", "4096", "65536", "1048576", "16777216", "268435456"})
+    public int size;
+
+    private EncryptionMode[] modes;
+    private byte[] key;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        key = Payloads.random(32);
+        modes = new EncryptionMode[IV_ROTATION];
+        for (int i = 0; i < IV_ROTATION; i++) {
+            byte[] iv = new byte["GCM".equals(mode) ? 12 : 16];
+            iv[0] = (byte) i;
+            modes[i] = AlgorithmFactory.getEncryptionMode(mode, iv, null);
+        }
+        plaintext = Payloads.random(size);
+        ciphertext = modes[0].encryptBlock(plaintext, key);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        next = (next + 1) % IV_ROTATION;
+        return modes[next].encryptBlock(plaintext, key);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return modes[0].decryptBlock(ciphertext, key);
+    }
+}
@@ -0,0 +1,47 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.hashing.HashAlgorithm;
+import com.inferno.crypto.hashing.MD5Hasher;
+import com.inferno.crypto.hashing.SHA256Hasher;
+import com.inferno.crypto.hashing.SHA512Hasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class HashBenchmark {
+
+    @Param({"MD5", "SHA-256", "SHA-512"})
+    public String hasherName;
+
+    @Param({"16", "64", "1024", "4096", "65536", "1048576", "16777216", "268435456"})
+    public int size;
+
+    private HashAlgorithm hasher;
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        switch (hasherName) {
+            case "MD5":
+                hasher = new MD5Hasher();
+                break;
+            case "SHA-256":
+                hasher = new SHA256Hasher();
+                break;
+            default:
+                hasher = new SHA512Hasher();
+        }
+        data = Payloads.random(size);
+    }
+
+    @Benchmark
+    public byte[] hash() throws Exception {
+        return hasher.hash(data);
+    }
+}
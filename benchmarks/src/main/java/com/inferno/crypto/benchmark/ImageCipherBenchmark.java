@@ -0,0 +1,58 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.algorithm.ImageCipher;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full PNG round trips through {@link ImageCipher}; {@code side} is the edge
+ * length of a square RGB test image.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ImageCipherBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"64", "512", "2048"})
+    public int side;
+
+    private ImageCipher cipher;
+    private byte[] png;
+    private byte[] encryptedPng;
+
+    @Setup
+    public void setup() throws Exception {
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(side);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        png = out.toByteArray();
+        cipher = new ImageCipher();
+        encryptedPng = cipher.encrypt(png, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return cipher.encrypt(png, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return cipher.decrypt(encryptedPng, PASSWORD);
+    }
+}
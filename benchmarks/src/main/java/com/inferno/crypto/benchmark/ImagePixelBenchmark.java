@@ -0,0 +1,95 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.algorithm.ImageCipher;
+import com.inferno.crypto.algorithm.ImageKeystream;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pixel stage of {@link ImageCipher} on decoded images, without PNG
+ * coding. Besides ops/s, the {@code megapixels} counter reports megapixels
+ * per second, which is comparable across image sizes.
+ *
+ * Format 2 runs under a keystream derived once in setup, so its PBKDF2 cost
+ * stays out of the pixel numbers; {@link Pbkdf2Benchmark#imageKeystream}
+ * measures it alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Thread)
+public class ImagePixelBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"1000", "4000", "7072"})
+    public int side;
+
+    /**
+     * Layout of the input: what ImageIO decodes PNG into, or the packed
+     * layout the cipher works on.
+     */
+    @Param({"TYPE_3BYTE_BGR", "TYPE_INT_RGB"})
+    public String type;
+
+    /**
+     * {@link ImageCipher#FORMAT_LEGACY} or {@link ImageCipher#FORMAT_KEYSTREAM}.
+     */
+    @Param({"1", "2"})
+    public int format;
+
+    private ImageCipher cipher;
+    private ImageKeystream keystream;
+    private BufferedImage image;
+    private BufferedImage encrypted;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Pixels {
+        public double megapixels;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megapixels = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        int imageType = "TYPE_INT_RGB".equals(type) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_3BYTE_BGR;
+        image = new BufferedImage(side, side, imageType);
+        Random random = new Random(side);
+        int[] row = new int[side];
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                row[x] = random.nextInt(0x1000000);
+            }
+            image.setRGB(0, y, side, 1, row, 0, side);
+        }
+        cipher = new ImageCipher();
+        cipher.setFormatVersion(format);
+        if (format == ImageCipher.FORMAT_KEYSTREAM) {
+            keystream = ImageKeystream.create(PASSWORD);
+            encrypted = cipher.encrypt(image, keystream);
+        } else {
+            encrypted = cipher.encrypt(image, PASSWORD);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage encrypt(Pixels pixels) throws Exception {
+        pixels.megapixels += side * (double) side / 1e6;
+        return keystream != null ? cipher.encrypt(image, keystream) : cipher.encrypt(image, PASSWORD);
+    }
+
+    @Benchmark
+    public BufferedImage decrypt(Pixels pixels) throws Exception {
+        pixels.megapixels += side * (double) side / 1e6;
+        return keystream != null ? cipher.decrypt(encrypted, keystream) : cipher.decrypt(encrypted, PASSWORD);
+    }
+}
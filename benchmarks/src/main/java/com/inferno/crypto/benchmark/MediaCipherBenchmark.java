@@ -0,0 +1,54 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.algorithm.AudioCipher;
+import com.inferno.crypto.algorithm.VideoCipher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Byte-array entry points of {@link AudioCipher} and {@link VideoCipher}.
+ * Replaces the hard-coded {@code VideoCipher.estimateProcessingTime} guess
+ * with measured throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MediaCipherBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"16", "64", "1024", "4096", "65536", "1048576", "16777216", "268435456"})
+    public int size;
+
+    private AudioCipher audio;
+    private VideoCipher video;
+    private byte[] plaintext;
+    private byte[] audioCiphertext;
+
+    @Setup
+    public void setup() throws Exception {
+        audio = new AudioCipher();
+        video = new VideoCipher();
+        plaintext = Payloads.random(size);
+        audioCiphertext = audio.encrypt(plaintext, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] audioEncrypt() throws Exception {
+        return audio.encrypt(plaintext, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] audioDecrypt() throws Exception {
+        return audio.decrypt(audioCiphertext, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] videoEncrypt() throws Exception {
+        return video.encrypt(plaintext, PASSWORD);
+    }
+}
@@ -0,0 +1,26 @@
+package com.inferno.crypto.benchmark;
+
+import java.util.Random;
+
+final class Payloads {
+
+    private static final long SEED = 0x1F2E3D4CL;
+
+    private Payloads() {}
+
+    static byte[] random(int size) {
+        byte[] data = new byte[size];
+        new Random(SEED).nextBytes(data);
+        return data;
+    }
+
+    /** Printable ASCII, the input domain of the classical ciphers. */
+    static byte[] text(int size) {
+        byte[] data = new byte[size];
+        Random random = new Random(SEED);
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (32 + random.nextInt(95));
+        }
+        return data;
+    }
+}
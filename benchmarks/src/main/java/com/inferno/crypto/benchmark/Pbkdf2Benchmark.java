@@ -0,0 +1,54 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.algorithm.ImageKeystream;
+import com.inferno.crypto.hashing.PBKDF2Hasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PBKDF2 cost depends on the iteration count, not on the payload size.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class Pbkdf2Benchmark {
+
+    @Param({"10000"})
+    public int iterations;
+
+    private PBKDF2Hasher hasher;
+    private byte[] salt;
+
+    @Setup
+    public void setup() {
+        hasher = new PBKDF2Hasher(iterations, 256);
+        salt = hasher.generateSalt(16);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] hash() {
+        return hasher.hash("benchmark-password", salt);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public byte[] generateSalt() {
+        return hasher.generateSalt(16);
+    }
+
+    /**
+     * The per-image key derivation of ImageCipher format 2, at its own
+     * iteration count.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ImageKeystream imageKeystream() throws Exception {
+        return ImageKeystream.create("benchmark-password");
+    }
+}
@@ -0,0 +1,45 @@
+package com.inferno.crypto.benchmark;
+
+import com.inferno.crypto.algorithm.AESCipher;
+import com.inferno.crypto.algorithm.BlowfishCipher;
+import com.inferno.crypto.algorithm.SymmetricCipher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SymmetricCipherBenchmark {
+
+    @Param({"AES", "Blowfish"})
+    public String algorithm;
+
+    @Param({"16", "64", "1024", "4096", "65536", "1048576", "16777216", "268435456"})
+    public int size;
+
+    private SymmetricCipher cipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setup() throws Exception {
+        cipher = "AES".equals(algorithm) ? new AESCipher(256) : new BlowfishCipher();
+        cipher.generateKey("AES".equals(algorithm) ? 32 : 16);
+        plaintext = Payloads.random(size);
+        ciphertext = cipher.encrypt(plaintext, null);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return cipher.encrypt(plaintext, null);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return cipher.decrypt(ciphertext, null);
+    }
+}
@@ -1,17 +1,34 @@
 package com.inferno.crypto.algorithm;
 
+import com.inferno.crypto.engine.CipherEngine;
+import com.inferno.crypto.engine.RandomService;
 import com.inferno.crypto.mode.EncryptionMode;
 import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
 import java.security.Key;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
-import java.security.SecureRandom;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 
 public class AESCipher extends SymmetricCipher {
 
     private int keySize;
     private String padding = "AES/CBC/PKCS5Padding";
+    private int batchParallelism = 1;
+    private boolean counterNonces;
+
+    private static final int PARALLEL_BATCH_THRESHOLD = 4096;
+    private static final int TASKS_PER_THREAD = 4;
 
     public AESCipher(int keySize) {
         this.keySize = keySize;
@@ -21,32 +38,304 @@ public class AESCipher extends SymmetricCipher {
         this.padding = padding;
     }
 
+    public String getPadding() {
+        return padding;
+    }
+
+    /**
+     * Draw GCM nonces from the key's {@link RandomService#nonces counter
+     * generator} instead of the DRBG. Only for keys that never outlive this
+     * process; other transformations keep random IVs.
+     */
+    public void setCounterNonces(boolean counterNonces) {
+        this.counterNonces = counterNonces;
+    }
+
+    /**
+     * Threads used by the batch methods for batches of at least
+     * {@value #PARALLEL_BATCH_THRESHOLD} records; smaller batches always run
+     * on the calling thread.
+     */
+    public void setBatchParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.batchParallelism = parallelism;
+    }
+
+    /**
+     * Returns {@code IV || ciphertext}, the record layout of the batch methods;
+     * {@link #decrypt(byte[], Key)} reads the IV back from the front.
+     */
     @Override
     public byte[] encrypt(byte[] data, Key ignored) throws Exception {
-        SecretKeySpec skey = new SecretKeySpec(key, "AES");
-        Cipher cipher = Cipher.getInstance(padding);
+        byte[] iv = newIVs(1);
+        Cipher cipher = CipherEngine.init(padding, Cipher.ENCRYPT_MODE, getKeySpec(),
+                parameters(iv, 0, iv.length));
+        byte[] out = Arrays.copyOf(iv, iv.length + cipher.getOutputSize(data.length));
+        int n = iv.length + cipher.doFinal(data, 0, data.length, out, iv.length);
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] data, Key ignored) throws Exception {
+        int ivLength = getStreamIVLength();
+        if (data.length < ivLength) {
+            throw new IllegalArgumentException("Ciphertext is shorter than its IV");
+        }
+        Cipher cipher = CipherEngine.init(padding, Cipher.DECRYPT_MODE, getKeySpec(),
+                parameters(data, 0, ivLength));
+        return cipher.doFinal(data, ivLength, data.length - ivLength);
+    }
 
-        IvParameterSpec iv = generateIV();
-        cipher.init(Cipher.ENCRYPT_MODE, skey, iv);
+    // === Buffers ===
 
-        return cipher.doFinal(data);
+    /**
+     * Writes {@code IV || ciphertext} to {@code dst}, as {@link #encrypt(byte[], Key)}.
+     */
+    @Override
+    public int encrypt(ByteBuffer src, ByteBuffer dst, Key ignored) throws Exception {
+        byte[] iv = newIVs(1);
+        Cipher cipher = CipherEngine.init(padding, Cipher.ENCRYPT_MODE, getKeySpec(),
+                parameters(iv, 0, iv.length));
+        int needed = iv.length + cipher.getOutputSize(src.remaining());
+        if (dst.remaining() < needed) {
+            throw new ShortBufferException("Need " + needed + " bytes, have " + dst.remaining());
+        }
+        dst.put(iv);
+        return iv.length + cipher.doFinal(src, dst);
     }
 
     @Override
-    public byte[] decrypt(byte[] data, Key ignored) throws Exception {
-        SecretKeySpec skey = new SecretKeySpec(key, "AES");
+    public int decrypt(ByteBuffer src, ByteBuffer dst, Key ignored) throws Exception {
+        int start = src.position();
+        Cipher cipher = CipherEngine.init(padding, Cipher.DECRYPT_MODE, getKeySpec(), readIV(src));
+        try {
+            return cipher.doFinal(src, dst);
+        } catch (ShortBufferException e) {
+            src.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * The IV goes in front of the result, so the plaintext is first moved up
+     * by its length and then encrypted where it lies.
+     */
+    @Override
+    public int encryptInPlace(ByteBuffer buffer, Key ignored) throws Exception {
+        byte[] iv = newIVs(1);
+        Cipher cipher = CipherEngine.init(padding, Cipher.ENCRYPT_MODE, getKeySpec(),
+                parameters(iv, 0, iv.length));
+        int start = buffer.position();
+        int length = buffer.remaining();
+        int needed = iv.length + cipher.getOutputSize(length);
+        if (buffer.capacity() - start < needed) {
+            throw new ShortBufferException("Need " + needed + " bytes, have " + (buffer.capacity() - start));
+        }
+        move(buffer, start, start + iv.length, length);
+        buffer.put(start, iv);
+        ByteBuffer body = buffer.duplicate();
+        body.limit(start + iv.length + length).position(start + iv.length);
+        int n = iv.length + CipherEngine.doFinalInPlace(cipher, body);
+        buffer.limit(start + n);
+        return n;
+    }
+
+    @Override
+    public int decryptInPlace(ByteBuffer buffer, Key ignored) throws Exception {
+        int start = buffer.position();
+        ByteBuffer body = buffer.duplicate();
+        Cipher cipher = CipherEngine.init(padding, Cipher.DECRYPT_MODE, getKeySpec(), readIV(body));
+        int n = CipherEngine.doFinalInPlace(cipher, body);
+        move(buffer, body.position(), start, n);
+        buffer.limit(start + n);
+        return n;
+    }
+
+    private AlgorithmParameterSpec readIV(ByteBuffer src) {
+        int ivLength = getStreamIVLength();
+        if (src.remaining() < ivLength) {
+            throw new IllegalArgumentException("Ciphertext is shorter than its IV");
+        }
+        byte[] iv = new byte[ivLength];
+        src.get(iv);
+        return parameters(iv, 0, ivLength);
+    }
+
+    // === Batches ===
+
+    /**
+     * Encrypts many small messages under one key context. Every record gets its
+     * own IV and is laid out as {@code IV || ciphertext} in the configured
+     * transformation, so records can also be decrypted one at a time.
+     */
+    public List<byte[]> encryptBatch(List<byte[]> messages) throws Exception {
+        return encryptBatch(PackedBatch.of(messages)).toList();
+    }
+
+    public List<byte[]> decryptBatch(List<byte[]> records) throws Exception {
+        return decryptBatch(PackedBatch.of(records)).toList();
+    }
+
+    /**
+     * Packed form of {@link #encryptBatch(List)}: the IVs of each range come
+     * from one draw of the thread's DRBG, or of the key's counter when
+     * {@link #setCounterNonces counter nonces} are on for GCM, and
+     * every record is written into a single output array.
+     */
+    public PackedBatch encryptBatch(PackedBatch messages) throws Exception {
+        int n = messages.size();
+        int ivLength = getStreamIVLength();
+        int[] offsets = new int[n + 1];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            total += ivLength + sealedLength(messages.length(i));
+            offsets[i + 1] = PackedBatch.toIntExact(total);
+        }
+        byte[] out = new byte[(int) total];
+        SecretKeySpec key = getKeySpec();
+        byte[] src = messages.getData();
+
+        forEachRange(n, (from, to) -> {
+            byte[] ivs = newIVs(to - from);
+            for (int i = from; i < to; i++) {
+                int pos = offsets[i];
+                System.arraycopy(ivs, (i - from) * ivLength, out, pos, ivLength);
+                Cipher cipher = CipherEngine.init(padding, Cipher.ENCRYPT_MODE, key,
+                        parameters(out, pos, ivLength));
+                cipher.doFinal(src, messages.offset(i), messages.length(i), out, pos + ivLength);
+            }
+        });
+        return new PackedBatch(out, offsets);
+    }
+
+    public PackedBatch decryptBatch(PackedBatch records) throws Exception {
+        int n = records.size();
+        int ivLength = getStreamIVLength();
+        // Plaintext never exceeds ciphertext, so record i is first decrypted into
+        // a slot the size of its ciphertext and compacted afterwards.
+        int[] slots = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            if (records.length(i) < ivLength) {
+                throw new IllegalArgumentException("Record " + i + " is shorter than its IV");
+            }
+            slots[i + 1] = slots[i] + records.length(i) - ivLength;
+        }
+        byte[] out = new byte[slots[n]];
+        int[] lengths = new int[n];
+        SecretKeySpec key = getKeySpec();
+        byte[] src = records.getData();
+
+        forEachRange(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pos = records.offset(i);
+                Cipher cipher = CipherEngine.init(padding, Cipher.DECRYPT_MODE, key,
+                        parameters(src, pos, ivLength));
+                lengths[i] = cipher.doFinal(src, pos + ivLength, records.length(i) - ivLength, out, slots[i]);
+            }
+        });
+
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(out, slots[i], out, offsets[i], lengths[i]);
+            offsets[i + 1] = offsets[i] + lengths[i];
+        }
+        return new PackedBatch(offsets[n] == out.length ? out : Arrays.copyOf(out, offsets[n]), offsets);
+    }
+
+    private byte[] newIVs(int count) {
+        int ivLength = getStreamIVLength();
+        if (counterNonces && padding.contains("/GCM/")) {
+            byte[] ivs = new byte[count * ivLength];
+            RandomService.nonces(getKeySpec()).next(ivs, 0, count);
+            return ivs;
+        }
+        return RandomService.bytes(count * ivLength);
+    }
+
+    private int sealedLength(int length) {
+        if (padding.contains("/GCM/")) {
+            return length + 16;
+        }
+        if (padding.endsWith("NoPadding")) {
+            return length;
+        }
+        return (length / 16 + 1) * 16;
+    }
+
+    private void forEachRange(int n, RangeTask task) throws Exception {
+        if (batchParallelism <= 1 || n < PARALLEL_BATCH_THRESHOLD) {
+            task.run(0, n);
+            return;
+        }
+        int step = Math.max(1, n / (batchParallelism * TASKS_PER_THREAD));
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < n; from += step) {
+            int start = from;
+            int end = Math.min(n, from + step);
+            tasks.add(() -> {
+                task.run(start, end);
+                return null;
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(batchParallelism);
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int from, int to) throws Exception;
+    }
+
+    @Override
+    public Cipher createStreamCipher(int opmode, byte[] iv) throws Exception {
         Cipher cipher = Cipher.getInstance(padding);
+        AlgorithmParameterSpec params = parameters(iv, 0, iv.length);
+        if (params == null) {
+            cipher.init(opmode, getKeySpec());
+        } else {
+            cipher.init(opmode, getKeySpec(), params);
+        }
+        return cipher;
+    }
 
-        IvParameterSpec iv = generateIV();
-        cipher.init(Cipher.DECRYPT_MODE, skey, iv);
+    /**
+     * A bare "AES" transformation is ECB with PKCS5 padding, like "AES/ECB/...".
+     */
+    private boolean isEcb() {
+        return !padding.contains("/") || padding.contains("/ECB/");
+    }
 
-        return cipher.doFinal(data);
+    private AlgorithmParameterSpec parameters(byte[] iv, int offset, int length) {
+        if (isEcb()) {
+            return null;
+        }
+        if (padding.contains("/GCM/")) {
+            return new GCMParameterSpec(128, iv, offset, length);
+        }
+        return new IvParameterSpec(iv, offset, length);
     }
 
-    private IvParameterSpec generateIV() {
-        byte[] iv = new byte[16]; // AES block size
-        new SecureRandom().nextBytes(iv);
-        return new IvParameterSpec(iv);
+    @Override
+    public int getStreamIVLength() {
+        if (isEcb()) {
+            return 0;
+        }
+        return padding.contains("/GCM/") ? 12 : 16;
     }
 
 
@@ -1,5 +1,7 @@
 package com.inferno.crypto.algorithm;
 
+import com.inferno.crypto.key.KeyPairPool;
+
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
@@ -8,16 +10,42 @@ public abstract class AsymmetricCipher implements CipherAlgorithm {
 
     protected PublicKey publicKey;
     protected PrivateKey privateKey;
+    private volatile KeyPairPool keyPairPool;
+
+    /**
+     * Take generated pairs from {@code pool} instead of generating them inline;
+     * null restores inline generation. A pool builds pairs with the JDK
+     * generator for {@link #getAlgorithmName()}, so while one is set
+     * {@link #doGenerateKeyPair} is not called and overrides of it are bypassed.
+     */
+    public void setKeyPairPool(KeyPairPool pool) {
+        this.keyPairPool = pool;
+    }
 
     public KeyPair generateKeyPair(int keySize) throws Exception {
-        if (keySize < 1024) {
+        if (keySize < getMinimumKeySize()) {
             throw new IllegalArgumentException("Key size too small for secure asymmetric encryption");
         }
-        return doGenerateKeyPair(keySize);
+        KeyPairPool pool = keyPairPool;
+        if (pool == null) {
+            return doGenerateKeyPair(keySize);
+        }
+        KeyPair pair = pool.take(getAlgorithmName(), keySize);
+        this.publicKey = pair.getPublic();
+        this.privateKey = pair.getPrivate();
+        return pair;
     }
 
     protected abstract KeyPair doGenerateKeyPair(int keySize) throws Exception;
 
+    /**
+     * Smallest key size {@link #generateKeyPair} accepts; 1024 suits RSA-style
+     * moduli, elliptic-curve ciphers override it.
+     */
+    protected int getMinimumKeySize() {
+        return 1024;
+    }
+
     public PublicKey getPublicKey() {
         return publicKey;
     }
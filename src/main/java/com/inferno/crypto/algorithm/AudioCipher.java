@@ -13,24 +13,20 @@ public class AudioCipher implements CipherAlgorithm {
     
     // Implementation of CipherAlgorithm interface
     
-    @Override
     public byte[] encrypt(byte[] plaintext, String key) throws CryptoException {
         validateKey(key);
         return encryptAudioData(plaintext, key);
     }
     
-    @Override
     public byte[] decrypt(byte[] ciphertext, String key) throws CryptoException {
         validateKey(key);
         return decryptAudioData(ciphertext, key);
     }
     
-    @Override
     public String getName() {
         return "AudioCipher";
     }
     
-    @Override
     public String getDescription() {
         return "Audio encryption algorithm using XOR, arithmetic, and permutation techniques";
     }
@@ -41,16 +37,33 @@ public class AudioCipher implements CipherAlgorithm {
     }
     
     @Override
+    public byte[] encrypt(byte[] data, java.security.Key key) throws CryptoException {
+        return encrypt(data, new String(key.getEncoded(), java.nio.charset.StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public byte[] decrypt(byte[] data, java.security.Key key) throws CryptoException {
+        return decrypt(data, new String(key.getEncoded(), java.nio.charset.StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public String getAlgorithmName() {
+        return getName();
+    }
+    
+    @Override
+    public boolean supportsMode(com.inferno.crypto.mode.EncryptionMode mode) {
+        return false;
+    }
+    
     public boolean requiresIV() {
         return false;
     }
     
-    @Override
     public boolean isSymmetric() {
         return true;
     }
     
-    @Override
     public void validateKey(String key) throws CryptoException {
         if (key == null || key.trim().isEmpty()) {
             throw new CryptoException("Encryption key cannot be null or empty");
@@ -60,7 +73,6 @@ public class AudioCipher implements CipherAlgorithm {
         }
     }
     
-    @Override
     public String[] getSupportedModes() {
         return new String[]{"ECB"};
     }
@@ -1,33 +1,184 @@
 package com.inferno.crypto.algorithm;
 
+import com.inferno.crypto.engine.BlowfishEngine;
+import com.inferno.crypto.engine.RandomService;
 import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
 import java.security.Key;
+import java.util.Arrays;
 
 public class BlowfishCipher extends SymmetricCipher {
 
-    private int rounds = 16;
+    private static final String ECB = "Blowfish/ECB/PKCS5Padding";
+    private static final String CTR = "Blowfish/CTR/NoPadding";
+
+    private int rounds = BlowfishEngine.DEFAULT_ROUNDS;
+    private String padding = ECB;
 
     public BlowfishCipher() {}
 
     public void setRounds(int rounds) {
+        BlowfishEngine.checkRounds(rounds);
         this.rounds = rounds;
     }
 
+    /**
+     * {@code "Blowfish/ECB/PKCS5Padding"} (the default) or
+     * {@code "Blowfish/CTR/NoPadding"}; CTR output is prefixed with its 8-byte IV.
+     */
+    public void setPadding(String padding) {
+        if (!ECB.equals(padding) && !CTR.equals(padding)) {
+            throw new IllegalArgumentException("Unsupported Blowfish transformation: " + padding);
+        }
+        this.padding = padding;
+    }
+
     @Override
     public byte[] encrypt(byte[] data, Key ignored) throws Exception {
-        SecretKeySpec skey = new SecretKeySpec(key, "Blowfish");
-        Cipher cipher = Cipher.getInstance("Blowfish");
-        cipher.init(Cipher.ENCRYPT_MODE, skey);
-        return cipher.doFinal(data);
+        BlowfishEngine engine = engine();
+        if (CTR.equals(padding)) {
+            byte[] out = new byte[BlowfishEngine.BLOCK_SIZE + data.length];
+            RandomService.nextBytes(out);
+            engine.ctr(Arrays.copyOf(out, BlowfishEngine.BLOCK_SIZE))
+                    .update(data, 0, data.length, out, BlowfishEngine.BLOCK_SIZE);
+            return out;
+        }
+        return engine.encryptEcb(data);
     }
 
     @Override
     public byte[] decrypt(byte[] data, Key ignored) throws Exception {
-        SecretKeySpec skey = new SecretKeySpec(key, "Blowfish");
-        Cipher cipher = Cipher.getInstance("Blowfish");
-        cipher.init(Cipher.DECRYPT_MODE, skey);
-        return cipher.doFinal(data);
+        BlowfishEngine engine = engine();
+        if (CTR.equals(padding)) {
+            if (data.length < BlowfishEngine.BLOCK_SIZE) {
+                throw new IllegalArgumentException("Ciphertext shorter than its IV");
+            }
+            byte[] out = new byte[data.length - BlowfishEngine.BLOCK_SIZE];
+            engine.ctr(Arrays.copyOf(data, BlowfishEngine.BLOCK_SIZE))
+                    .update(data, BlowfishEngine.BLOCK_SIZE, out.length, out, 0);
+            return out;
+        }
+        return engine.decryptEcb(data);
+    }
+
+    // === Buffers ===
+
+    @Override
+    public int encrypt(ByteBuffer src, ByteBuffer dst, Key ignored) throws Exception {
+        BlowfishEngine engine = engine();
+        if (!CTR.equals(padding)) {
+            return engine.encryptEcb(src, dst);
+        }
+        int needed = BlowfishEngine.BLOCK_SIZE + src.remaining();
+        if (dst.remaining() < needed) {
+            throw new ShortBufferException("Need " + needed + " bytes, have " + dst.remaining());
+        }
+        byte[] iv = RandomService.bytes(BlowfishEngine.BLOCK_SIZE);
+        dst.put(iv);
+        return BlowfishEngine.BLOCK_SIZE + engine.ctr(iv).update(src, dst);
+    }
+
+    @Override
+    public int decrypt(ByteBuffer src, ByteBuffer dst, Key ignored) throws Exception {
+        BlowfishEngine engine = engine();
+        if (!CTR.equals(padding)) {
+            return engine.decryptEcb(src, dst);
+        }
+        int start = src.position();
+        BlowfishEngine.Ctr ctr = engine.ctr(readIV(src));
+        try {
+            return ctr.update(src, dst);
+        } catch (ShortBufferException e) {
+            src.position(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int encryptInPlace(ByteBuffer buffer, Key ignored) throws Exception {
+        BlowfishEngine engine = engine();
+        int start = buffer.position();
+        int length = buffer.remaining();
+        ByteBuffer dst = buffer.duplicate();
+        dst.limit(dst.capacity());
+        int n;
+        if (CTR.equals(padding)) {
+            if (dst.remaining() < BlowfishEngine.BLOCK_SIZE + length) {
+                throw new ShortBufferException("Need " + (BlowfishEngine.BLOCK_SIZE + length)
+                        + " bytes, have " + dst.remaining());
+            }
+            byte[] iv = RandomService.bytes(BlowfishEngine.BLOCK_SIZE);
+            move(buffer, start, start + iv.length, length);
+            dst.put(iv);
+            ByteBuffer body = dst.duplicate();
+            body.limit(dst.position() + length);
+            n = iv.length + engine.ctr(iv).update(body, dst);
+        } else {
+            n = engine.encryptEcb(buffer.duplicate(), dst);
+        }
+        buffer.limit(start + n);
+        return n;
+    }
+
+    @Override
+    public int decryptInPlace(ByteBuffer buffer, Key ignored) throws Exception {
+        BlowfishEngine engine = engine();
+        int start = buffer.position();
+        ByteBuffer src = buffer.duplicate();
+        int n;
+        if (CTR.equals(padding)) {
+            BlowfishEngine.Ctr ctr = engine.ctr(readIV(src));
+            int body = src.position();
+            n = ctr.update(src, buffer.duplicate().position(body));
+            move(buffer, body, start, n);
+        } else {
+            n = engine.decryptEcb(src, buffer.duplicate());
+        }
+        buffer.limit(start + n);
+        return n;
+    }
+
+    private static byte[] readIV(ByteBuffer src) {
+        if (src.remaining() < BlowfishEngine.BLOCK_SIZE) {
+            throw new IllegalArgumentException("Ciphertext shorter than its IV");
+        }
+        byte[] iv = new byte[BlowfishEngine.BLOCK_SIZE];
+        src.get(iv);
+        return iv;
+    }
+
+    // === Streams ===
+
+    /**
+     * Engine for streams. CTR runs on {@link BlowfishEngine#ctrCipher} unless
+     * the rounds are the standard 16, where the JCE cipher is used; ECB with
+     * other round counts has no stream engine and is processed whole.
+     */
+    @Override
+    public Cipher createStreamCipher(int opmode, byte[] iv) throws Exception {
+        boolean standard = rounds == BlowfishEngine.DEFAULT_ROUNDS;
+        if (CTR.equals(padding)) {
+            Cipher cipher = standard ? Cipher.getInstance(CTR) : BlowfishEngine.ctrCipher(rounds);
+            cipher.init(opmode, getKeySpec(), new IvParameterSpec(iv));
+            return cipher;
+        }
+        if (!standard) {
+            return null;
+        }
+        Cipher cipher = Cipher.getInstance(ECB);
+        cipher.init(opmode, getKeySpec());
+        return cipher;
+    }
+
+    @Override
+    public int getStreamIVLength() {
+        return CTR.equals(padding) ? BlowfishEngine.BLOCK_SIZE : 0;
+    }
+
+    private BlowfishEngine engine() throws Exception {
+        return BlowfishEngine.forKey(key, rounds);
     }
 
     @Override
@@ -1,14 +1,28 @@
 package com.inferno.crypto.algorithm;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.inferno.crypto.engine.ByteTable;
 
+/**
+ * Rotates printable ASCII (32..126) by {@code shift} within its 95 characters;
+ * every other byte passes through unchanged, so decryption is exact.
+ */
 public class CaesarCipher extends ClassicalCipher {
 
     private int shift;
+    private final ByteTable table;
 
     public CaesarCipher(int shift) {
         this.shift = shift % 26;
+        this.table = new ByteTable(rotation(this.shift));
+    }
+
+    private static byte[] rotation(int shift) {
+        byte[] forward = ByteTable.identity();
+        int s = Math.floorMod(shift, 95);
+        for (int c = 32; c < 127; c++) {
+            forward[c] = (byte) ((c - 32 + s) % 95 + 32);
+        }
+        return forward;
     }
 
     @Override
@@ -18,17 +32,22 @@ public class CaesarCipher extends ClassicalCipher {
 
     @Override
     public byte[] encrypt(byte[] data, java.security.Key ignored) {
-        String text = new String(data);
-        StringBuilder result = new StringBuilder();
-        for (char c : text.toCharArray()) {
-            result.append((char) ((c + shift - 32) % 95 + 32));
-        }
-        return result.toString().getBytes();
+        return table.encrypt(data);
     }
 
     @Override
     public byte[] decrypt(byte[] data, java.security.Key ignored) {
-        return encrypt(data, ignored);
+        return table.decrypt(data);
+    }
+
+    @Override
+    protected void transform(byte[] src, int srcOff, int len, byte[] dst, int dstOff,
+                             long position, boolean encrypt) {
+        if (encrypt) {
+            table.encrypt(src, srcOff, len, dst, dstOff);
+        } else {
+            table.decrypt(src, srcOff, len, dst, dstOff);
+        }
     }
 
     @Override
@@ -1,5 +1,7 @@
 package com.inferno.crypto.algorithm;
 import com.inferno.crypto.mode.EncryptionMode;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
 import java.security.Key;
 
 public interface CipherAlgorithm {
@@ -8,4 +10,63 @@ public interface CipherAlgorithm {
     String getAlgorithmName();
     int getKeySize();
     boolean supportsMode(EncryptionMode mode);
+
+    /**
+     * Encrypts the remaining bytes of {@code src} into {@code dst}, advancing both.
+     * This default copies through the byte[] API; ciphers override it to work on
+     * the buffers directly.
+     *
+     * @return number of bytes written to {@code dst}
+     */
+    default int encrypt(ByteBuffer src, ByteBuffer dst, Key key) throws Exception {
+        return ByteBufferAdapter.apply(this, src, dst, key, true);
+    }
+
+    default int decrypt(ByteBuffer src, ByteBuffer dst, Key key) throws Exception {
+        return ByteBufferAdapter.apply(this, src, dst, key, false);
+    }
+
+    /**
+     * Replaces the bytes between {@code buffer}'s position and limit with their
+     * encryption. The position is unchanged and the limit is moved to the end of
+     * the result, which may extend up to the buffer's capacity.
+     *
+     * @return length of the result
+     */
+    default int encryptInPlace(ByteBuffer buffer, Key key) throws Exception {
+        return ByteBufferAdapter.applyInPlace(this, buffer, key, true);
+    }
+
+    default int decryptInPlace(ByteBuffer buffer, Key key) throws Exception {
+        return ByteBufferAdapter.applyInPlace(this, buffer, key, false);
+    }
+}
+
+final class ByteBufferAdapter {
+
+    private ByteBufferAdapter() {}
+
+    static int apply(CipherAlgorithm cipher, ByteBuffer src, ByteBuffer dst, Key key, boolean encrypt)
+            throws Exception {
+        int start = src.position();
+        byte[] in = new byte[src.remaining()];
+        src.get(in);
+        byte[] out = encrypt ? cipher.encrypt(in, key) : cipher.decrypt(in, key);
+        if (out.length > dst.remaining()) {
+            src.position(start);
+            throw new ShortBufferException("Need " + out.length + " bytes, have " + dst.remaining());
+        }
+        dst.put(out);
+        return out.length;
+    }
+
+    static int applyInPlace(CipherAlgorithm cipher, ByteBuffer buffer, Key key, boolean encrypt)
+            throws Exception {
+        ByteBuffer src = buffer.duplicate();
+        ByteBuffer dst = buffer.duplicate();
+        dst.limit(dst.capacity());
+        int n = apply(cipher, src, dst, key, encrypt);
+        buffer.limit(buffer.position() + n);
+        return n;
+    }
 }
@@ -1,7 +1,28 @@
 package com.inferno.crypto.algorithm;
 
+import javax.crypto.ShortBufferException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.Key;
+import java.util.Arrays;
+
+/**
+ * Base class of the classical ciphers.
+ *
+ * Besides the whole-array {@code encrypt}/{@code decrypt}, every classical cipher
+ * can be run over a stream in constant memory: {@link #update} takes the input
+ * chunk by chunk, and a {@link ChunkState} carries whatever positional state the
+ * cipher needs (stream offset for the key index, a partly filled block) across
+ * chunk boundaries. The ByteBuffer methods work on heap buffers' arrays directly
+ * and on direct buffers a bounded chunk at a time.
+ */
 public abstract class ClassicalCipher implements CipherAlgorithm {
 
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final int DIRECT_CHUNK_SIZE = 8 * 1024;
+
     protected String key;
 
     public void setKey(String key) {
@@ -11,6 +32,176 @@ public abstract class ClassicalCipher implements CipherAlgorithm {
         this.key = key;
     }
 
+    /**
+     * State of one stream being encrypted or decrypted chunk by chunk.
+     */
+    public static final class ChunkState {
+        final boolean encrypt;
+        long position;
+        byte[] block;
+        int blockFill;
+
+        ChunkState(boolean encrypt) {
+            this.encrypt = encrypt;
+        }
+
+        public boolean isEncrypt() {
+            return encrypt;
+        }
+
+        /**
+         * Number of stream bytes transformed so far.
+         */
+        public long getPosition() {
+            return position;
+        }
+    }
+
+    public ChunkState newChunkState(boolean encrypt) {
+        return new ChunkState(encrypt);
+    }
+
+    /**
+     * Upper bound on what {@link #update} writes for {@code len} more input bytes.
+     */
+    public int getOutputSize(ChunkState state, int len) {
+        return len;
+    }
+
+    /**
+     * Processes the next {@code len} bytes of the stream.
+     *
+     * @return the number of bytes written to {@code dst}
+     */
+    public int update(ChunkState state, byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        transform(src, srcOff, len, dst, dstOff, state.position, state.encrypt);
+        state.position += len;
+        return len;
+    }
+
+    /**
+     * Flushes whatever the cipher still holds at the end of the stream.
+     *
+     * @return the number of bytes written to {@code dst}
+     */
+    public int finish(ChunkState state, byte[] dst, int dstOff) {
+        return 0;
+    }
+
+    /**
+     * Transforms {@code len} bytes found at {@code position} in the stream.
+     * The default treats the cipher as position-independent and runs the
+     * chunk through the whole-array methods; positional ciphers override it.
+     */
+    protected void transform(byte[] src, int srcOff, int len, byte[] dst, int dstOff,
+                             long position, boolean encrypt) {
+        byte[] chunk = Arrays.copyOfRange(src, srcOff, srcOff + len);
+        try {
+            byte[] result = encrypt ? encrypt(chunk, null) : decrypt(chunk, null);
+            System.arraycopy(result, 0, dst, dstOff, len);
+        } catch (Exception e) {
+            throw new IllegalStateException(getAlgorithmName() + " failed on a stream chunk", e);
+        }
+    }
+
+    // === Buffers ===
+
+    @Override
+    public int encrypt(ByteBuffer src, ByteBuffer dst, Key ignored) throws ShortBufferException {
+        return transform(src, dst, true);
+    }
+
+    @Override
+    public int decrypt(ByteBuffer src, ByteBuffer dst, Key ignored) throws ShortBufferException {
+        return transform(src, dst, false);
+    }
+
+    @Override
+    public int encryptInPlace(ByteBuffer buffer, Key ignored) {
+        int n = buffer.remaining();
+        transform(buffer, buffer.position(), buffer, buffer.position(), n, true);
+        return n;
+    }
+
+    @Override
+    public int decryptInPlace(ByteBuffer buffer, Key ignored) {
+        int n = buffer.remaining();
+        transform(buffer, buffer.position(), buffer, buffer.position(), n, false);
+        return n;
+    }
+
+    private int transform(ByteBuffer src, ByteBuffer dst, boolean encrypt) throws ShortBufferException {
+        int n = src.remaining();
+        if (dst.remaining() < n) {
+            throw new ShortBufferException("Need " + n + " bytes, have " + dst.remaining());
+        }
+        int s = src.position();
+        int d = dst.position();
+        transform(src, s, dst, d, n, encrypt);
+        src.position(s + n);
+        dst.position(d + n);
+        return n;
+    }
+
+    /**
+     * Transforms the {@code len} bytes at index {@code s} of {@code src} as one
+     * whole message into {@code dst} at index {@code d}; the two may be the same
+     * buffer at the same index. Every classical cipher keeps the length, and
+     * the default relies on {@link #transform(byte[], int, int, byte[], int, long, boolean)}
+     * working in place, as the byte-wise ciphers do; others override this.
+     */
+    protected void transform(ByteBuffer src, int s, ByteBuffer dst, int d, int len, boolean encrypt) {
+        if (src.hasArray() && dst.hasArray()) {
+            transform(src.array(), src.arrayOffset() + s, len, dst.array(), dst.arrayOffset() + d, 0, encrypt);
+            return;
+        }
+        byte[] chunk = new byte[Math.min(len, DIRECT_CHUNK_SIZE)];
+        for (int off = 0; off < len; off += chunk.length) {
+            int n = Math.min(chunk.length, len - off);
+            src.get(s + off, chunk, 0, n);
+            transform(chunk, 0, n, chunk, 0, off, encrypt);
+            dst.put(d + off, chunk, 0, n);
+        }
+    }
+
+    /**
+     * Runs the whole of {@code in} through the cipher into {@code out}, holding
+     * at most one buffer of input at a time.
+     *
+     * @return the number of bytes written to {@code out}
+     */
+    public long process(InputStream in, OutputStream out, boolean encrypt) throws IOException {
+        ChunkState state = newChunkState(encrypt);
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        byte[] result = new byte[getOutputSize(state, buffer.length)];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            int size = getOutputSize(state, n);
+            if (size > result.length) {
+                result = new byte[size];
+            }
+            int written = update(state, buffer, 0, n, result, 0);
+            out.write(result, 0, written);
+            total += written;
+        }
+        int size = getOutputSize(state, 0);
+        if (size > result.length) {
+            result = new byte[size];
+        }
+        int written = finish(state, result, 0);
+        out.write(result, 0, written);
+        return total + written;
+    }
+
+    public long encrypt(InputStream in, OutputStream out) throws IOException {
+        return process(in, out, true);
+    }
+
+    public long decrypt(InputStream in, OutputStream out) throws IOException {
+        return process(in, out, false);
+    }
+
     public abstract boolean validateKey(String key);
     public abstract boolean supportsMode(com.inferno.crypto.mode.EncryptionMode mode);
     public abstract String getAlgorithmName();
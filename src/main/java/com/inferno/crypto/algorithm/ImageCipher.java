@@ -1,36 +1,92 @@
 package com.inferno.crypto.algorithm;
 
 import com.inferno.crypto.exception.CryptoException;
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.Random;
 
+/**
+ * Password-based image encryption: a per-pixel keystream followed by a
+ * row/column scramble, written out as PNG.
+ *
+ * Format 1 is the original scheme keyed by {@code password.hashCode()}.
+ * Format 2, the default, uses the AES counter-mode keystream of
+ * {@link ImageKeystream}, which splits across threads; its header is kept in
+ * the {@link #HEADER_PROPERTY} image property and in a PNG text chunk or TIFF
+ * description. Formats without room for it, such as BMP and GIF, are refused
+ * for format 2 output. Decryption takes the format from the header; an image
+ * without one is decrypted as format 1, so existing encrypted images keep
+ * working, unless format 2 was explicitly selected with
+ * {@link #setFormatVersion}, in which case it fails instead of decrypting a
+ * format 2 image that lost its header to noise.
+ * With a tile size set, format 2 scrambles within square tiles, and
+ * {@link #encryptTiled}/{@link #decryptTiled} process image files tile by tile
+ * in bounded memory.
+ */
 public class ImageCipher implements CipherAlgorithm {
+
+    public static final int FORMAT_LEGACY = 1;
+    public static final int FORMAT_KEYSTREAM = ImageKeystream.VERSION;
+
+    /**
+     * Image property holding the format 2 header of an encrypted image.
+     */
+    public static final String HEADER_PROPERTY = "infernocrypt.header";
+
+    private int formatVersion = FORMAT_KEYSTREAM;
+    private boolean formatSelected;
+    private boolean parallel = true;
+    private int tileSize;
+
+    public void setFormatVersion(int formatVersion) {
+        if (formatVersion != FORMAT_LEGACY && formatVersion != FORMAT_KEYSTREAM) {
+            throw new IllegalArgumentException("Unknown image format version: " + formatVersion);
+        }
+        this.formatVersion = formatVersion;
+        this.formatSelected = true;
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    /**
+     * Spread the format 2 keystream over the common ForkJoin pool; on by default.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Scramble format 2 images within square tiles of this edge, at most
+     * {@link ImageKeystream#MAX_TILE_SIZE}; 0 (the default) scrambles across
+     * the whole image.
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 0 || tileSize > ImageKeystream.MAX_TILE_SIZE) {
+            throw new IllegalArgumentException("Tile size must be between 0 and " + ImageKeystream.MAX_TILE_SIZE);
+        }
+        this.tileSize = tileSize;
+    }
     
     // --- Implemented CipherAlgorithm methods ---
     
-    @Override
     public byte[] encrypt(byte[] plaintext, String key) throws CryptoException {
         // These are NEW methods that work with byte arrays
         // They don't interfere with the original file-based methods
         try {
             validateKey(key);
             ByteArrayInputStream bis = new ByteArrayInputStream(plaintext);
-            BufferedImage image = ImageIO.read(bis);
+            BufferedImage image = ImageCipherHelper.readImage(bis);
             
             if (image == null) {
                 throw new CryptoException("Invalid image data");
             }
             
-            BufferedImage encrypted = encryptPixels(image, key);
-            BufferedImage scrambled = scramblePixels(encrypted, key);
-            
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(scrambled, "png", baos);
+            ImageCipherHelper.writePng(encrypt(image, key), baos);
             return baos.toByteArray();
             
         } catch (IOException e) {
@@ -38,23 +94,19 @@ public class ImageCipher implements CipherAlgorithm {
         }
     }
     
-    @Override
     public byte[] decrypt(byte[] ciphertext, String key) throws CryptoException {
         try {
             validateKey(key);
             ByteArrayInputStream bis = new ByteArrayInputStream(ciphertext);
-            BufferedImage image = ImageIO.read(bis);
+            BufferedImage image = ImageCipherHelper.readImage(bis);
             
             if (image == null) {
                 throw new CryptoException("Invalid image data");
             }
             
-            BufferedImage unscrambled = unscramblePixels(image, key);
-            BufferedImage decrypted = decryptPixels(unscrambled, key);
-            
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             // Use PNG format for decrypted output in byte array mode
-            ImageIO.write(decrypted, "png", baos);
+            ImageCipherHelper.writePng(decrypt(image, key), baos);
             return baos.toByteArray();
             
         } catch (IOException e) {
@@ -62,31 +114,133 @@ public class ImageCipher implements CipherAlgorithm {
         }
     }
     
-    // Helper methods for the interface implementation
-    private BufferedImage encryptPixels(BufferedImage image, String password) {
-        return ImageCipherHelper.encryptPixels(image, password);
+    /**
+     * Encrypts and scrambles a decoded image; the result is TYPE_INT_RGB and,
+     * in format 2, carries its header in {@link #HEADER_PROPERTY}.
+     */
+    public BufferedImage encrypt(BufferedImage image, String key) throws CryptoException {
+        validateKey(key);
+        if (formatVersion == FORMAT_LEGACY) {
+            BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            ImageCipherHelper.encryptAndScramble(image, ImageCipherHelper.data(result), key);
+            return result;
+        }
+        return encrypt(image, ImageKeystream.create(key, tileSize));
     }
-    
-    private BufferedImage decryptPixels(BufferedImage image, String password) {
-        return ImageCipherHelper.decryptPixels(image, password);
+
+    /**
+     * Format 2 encryption under an already derived keystream, whose tile size
+     * applies instead of the configured one. Each keystream from
+     * {@link ImageKeystream#create} is for one image only.
+     */
+    public BufferedImage encrypt(BufferedImage image, ImageKeystream keystream) {
+        BufferedImage result = ImageCipherHelper.rgbImage(image.getWidth(), image.getHeight(), keystream.header());
+        if (keystream.tileSize() > 0) {
+            TiledImageCipher.encrypt(image, ImageCipherHelper.data(result), keystream, parallel);
+        } else {
+            ImageCipherHelper.encryptAndScramble(image, ImageCipherHelper.data(result), keystream, parallel);
+        }
+        return result;
     }
-    
-    private BufferedImage scramblePixels(BufferedImage image, String password) {
-        return ImageCipherHelper.scramblePixels(image, password);
+
+    /**
+     * Reverses {@link #encrypt(BufferedImage, String)}. An image without a
+     * format 2 header is decrypted as format 1, unless format 2 was explicitly
+     * selected.
+     */
+    public BufferedImage decrypt(BufferedImage image, String key) throws CryptoException {
+        validateKey(key);
+        String header = ImageCipherHelper.header(image);
+        if (header != null) {
+            return decrypt(image, ImageKeystream.fromHeader(key, header));
+        }
+        if (formatVersion != FORMAT_LEGACY && formatSelected) {
+            throw new CryptoException("Image has no format 2 header; select format 1 to decrypt a legacy image");
+        }
+        BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        ImageCipherHelper.unscrambleAndDecrypt(image, ImageCipherHelper.data(result), key);
+        return result;
     }
-    
-    private BufferedImage unscramblePixels(BufferedImage image, String password) {
-        return ImageCipherHelper.unscramblePixels(image, password);
+
+    /**
+     * Format 2 decryption under an already derived keystream.
+     *
+     * @throws CryptoException if the image carries a different header
+     */
+    public BufferedImage decrypt(BufferedImage image, ImageKeystream keystream) throws CryptoException {
+        String header = ImageCipherHelper.header(image);
+        if (header != null && !header.equals(keystream.header())) {
+            throw new CryptoException("Keystream does not match the image header");
+        }
+        BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        if (keystream.tileSize() > 0) {
+            TiledImageCipher.decrypt(image, ImageCipherHelper.data(result), keystream, parallel);
+        } else {
+            ImageCipherHelper.unscrambleAndDecrypt(image, ImageCipherHelper.data(result), keystream, parallel);
+        }
+        return result;
     }
-    
+
+    /**
+     * Encrypts an image file of any size into a tiled TIFF, reading and
+     * writing one row of tiles at a time; always format 2, with the configured
+     * tile size or 512.
+     */
+    public void encryptTiled(File input, File output, String key) throws IOException, CryptoException {
+        validateKey(key);
+        TiledImageCipher.encrypt(input, output, key, tileSize > 0 ? tileSize : TiledImageCipher.DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Decrypts a file written by {@link #encryptTiled} into a tiled TIFF. Any
+     * other encrypted image is decrypted whole, as by {@link #decrypt(BufferedImage, String)}.
+     */
+    public void decryptTiled(File input, File output, String key) throws IOException, CryptoException {
+        validateKey(key);
+        if (!TiledImageCipher.decrypt(input, output, key)) {
+            BufferedImage image = readImage(input);
+            if (image == null) {
+                throw new CryptoException("Invalid image data");
+            }
+            writeImage(decrypt(image, key), "tif", output);
+        }
+    }
+
+    /**
+     * Decodes an image file, keeping the header of a format 2 image. Nothing
+     * but the file itself is touched on disk.
+     *
+     * @return the image, or null if no reader understands the file
+     */
+    public static BufferedImage readImage(File file) throws IOException {
+        return ImageCipherHelper.readImage(file);
+    }
+
+    /**
+     * Encodes {@code image} straight into {@code file}, reusing this thread's
+     * writer for {@code format}; a format 2 header is kept when writing PNG or
+     * TIFF.
+     *
+     * @throws IOException if {@code image} has a format 2 header and
+     *         {@code format} cannot store it
+     */
+    public static void writeImage(BufferedImage image, String format, File file) throws IOException {
+        ImageCipherHelper.writeImage(image, format, file);
+    }
+
+    /**
+     * Whether {@code format} can store a format 2 header; PNG and TIFF can.
+     */
+    public static boolean keepsHeader(String format) {
+        return ImageCipherHelper.keepsHeader(format.toLowerCase());
+    }
+
     // --- CipherAlgorithm Interface Methods ---
     
-    @Override
     public String getName() {
         return "ImageCipher";
     }
     
-    @Override
     public String getDescription() {
         return "Image encryption algorithm using pixel scrambling and XOR-based encryption";
     }
@@ -97,16 +251,33 @@ public class ImageCipher implements CipherAlgorithm {
     }
     
     @Override
+    public byte[] encrypt(byte[] data, java.security.Key key) throws CryptoException {
+        return encrypt(data, new String(key.getEncoded(), java.nio.charset.StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public byte[] decrypt(byte[] data, java.security.Key key) throws CryptoException {
+        return decrypt(data, new String(key.getEncoded(), java.nio.charset.StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public String getAlgorithmName() {
+        return getName();
+    }
+    
+    @Override
+    public boolean supportsMode(com.inferno.crypto.mode.EncryptionMode mode) {
+        return false;
+    }
+    
     public boolean requiresIV() {
         return false;
     }
     
-    @Override
     public boolean isSymmetric() {
         return true;
     }
     
-    @Override
     public void validateKey(String key) throws CryptoException {
         if (key == null || key.isEmpty()) {
             throw new CryptoException("Password cannot be null or empty");
@@ -117,7 +288,6 @@ public class ImageCipher implements CipherAlgorithm {
         }
     }
     
-    @Override
     public String[] getSupportedModes() {
         return new String[]{"ECB"};
     }
@@ -125,197 +295,3 @@ public class ImageCipher implements CipherAlgorithm {
     // Note: The default encryptToBase64/decryptFromBase64 work with text,
     // but for images you'd want specialized methods
 }
-
-// --- ORIGINAL FUNCTIONALITY PRESERVED AS STATIC METHODS ---
-
-class ImageCipherHelper {
-    
-    // Convert JPEG to PNG before encryption (for images only)
-    public static void convertJpegToPng(String jpegPath, String pngPath) {
-        try {
-            BufferedImage image = ImageIO.read(new File(jpegPath));
-            ImageIO.write(image, "png", new File(pngPath));
-            System.out.println(" JPEG converted to PNG: " + pngPath);
-        } catch (IOException e) {
-            System.out.println(" Conversion error: " + e.getMessage());
-        }
-    }
-    
-    // Original Image encryption (file-based)
-    public static void encryptImage(String inputPath, String outputPath, String password) {
-        try {
-            BufferedImage image = ImageIO.read(new File(inputPath));
-            if (image == null) {
-                System.out.println("Error: Could not read image. Ensure path is correct.");
-                return;
-            }
-
-            BufferedImage encryptedPixels = encryptPixels(image, password);
-            BufferedImage scrambledImage = scramblePixels(encryptedPixels, password);
-            
-            // Always save as PNG to preserve encryption
-            ImageIO.write(scrambledImage, "png", new File(outputPath));
-            System.out.println(" Image encryption completed!");
-            
-        } catch (IOException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
-    }
-    
-    // Original Image decryption (file-based)
-    public static void decryptImage(String inputPath, String outputPath, String password) {
-        try {
-            BufferedImage image = ImageIO.read(new File(inputPath));
-            if (image == null) {
-                System.out.println("Error: Could not read image.");
-                return;
-            }
-            
-            BufferedImage unscrambledImage = unscramblePixels(image, password);
-            BufferedImage decryptedImage = decryptPixels(unscrambledImage, password);
-            
-            // Save decrypted image (can be JPEG now)
-            String extension = "png"; // Default to png
-            if(outputPath.contains(".")) {
-                extension = outputPath.substring(outputPath.lastIndexOf(".") + 1);
-            }
-            ImageIO.write(decryptedImage, extension, new File(outputPath));
-            System.out.println(" Image decryption completed!");
-            
-        } catch (IOException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
-    }
-
-    // --- Original Private Helper Methods (now package-private for access) ---
-
-    static BufferedImage encryptPixels(BufferedImage image, String password) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        
-        Random random = new Random(password.hashCode());
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                
-                int red = (rgb >> 16) & 0xff;
-                int green = (rgb >> 8) & 0xff;
-                int blue = rgb & 0xff;
-                
-                int key1 = random.nextInt(256);
-                int key2 = (password.charAt((x + y) % password.length()) & 0xFF);
-                int key3 = (x * y + password.length()) % 256;
-                
-                red = (red ^ key1 ^ key2 ^ key3) % 256;
-                green = (green ^ key2 ^ key3 ^ key1) % 256;
-                blue = (blue ^ key3 ^ key1 ^ key2) % 256;
-                
-                red = (red + key1) % 256;
-                green = (green + key2) % 256;
-                blue = (blue + key3) % 256;
-                
-                int newRGB = (red << 16) | (green << 8) | blue;
-                result.setRGB(x, y, newRGB);
-            }
-        }
-        return result;
-    }
-    
-    static BufferedImage decryptPixels(BufferedImage image, String password) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        
-        Random random = new Random(password.hashCode());
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                
-                int red = (rgb >> 16) & 0xff;
-                int green = (rgb >> 8) & 0xff;
-                int blue = rgb & 0xff;
-                
-                int key1 = random.nextInt(256);
-                int key2 = (password.charAt((x + y) % password.length()) & 0xFF);
-                int key3 = (x * y + password.length()) % 256;
-                
-                red = (red - key1 + 256) % 256;
-                green = (green - key2 + 256) % 256;
-                blue = (blue - key3 + 256) % 256;
-                
-                red = (red ^ key1 ^ key2 ^ key3) % 256;
-                green = (green ^ key2 ^ key3 ^ key1) % 256;
-                blue = (blue ^ key3 ^ key1 ^ key2) % 256;
-                
-                int newRGB = (red << 16) | (green << 8) | blue;
-                result.setRGB(x, y, newRGB);
-            }
-        }
-        return result;
-    }
-    
-    static BufferedImage scramblePixels(BufferedImage image, String password) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        
-        Random random = new Random(password.hashCode() + 1);
-        
-        int[] xMap = new int[width];
-        int[] yMap = new int[height];
-        for (int i = 0; i < width; i++) xMap[i] = i;
-        for (int i = 0; i < height; i++) yMap[i] = i;
-        
-        shuffleArray(xMap, random);
-        shuffleArray(yMap, random);
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                result.setRGB(xMap[x], yMap[y], rgb);
-            }
-        }
-        return result;
-    }
-    
-    static BufferedImage unscramblePixels(BufferedImage image, String password) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        
-        Random random = new Random(password.hashCode() + 1);
-        
-        int[] xMap = new int[width];
-        int[] yMap = new int[height];
-        for (int i = 0; i < width; i++) xMap[i] = i;
-        for (int i = 0; i < height; i++) yMap[i] = i;
-        
-        shuffleArray(xMap, random);
-        shuffleArray(yMap, random);
-        
-        int[] xMapReverse = new int[width];
-        int[] yMapReverse = new int[height];
-        for (int i = 0; i < width; i++) xMapReverse[xMap[i]] = i;
-        for (int i = 0; i < height; i++) yMapReverse[yMap[i]] = i;
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                result.setRGB(xMapReverse[x], yMapReverse[y], rgb);
-            }
-        }
-        return result;
-    }
-    
-    private static void shuffleArray(int[] array, Random random) {
-        for (int i = array.length - 1; i > 0; i--) {
-            int index = random.nextInt(i + 1);
-            int temp = array[index];
-            array[index] = array[i];
-            array[i] = temp;
-        }
-    }
-}
\ No newline at end of file
@@ -0,0 +1,502 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.exception.CryptoException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataFormatImpl;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import org.w3c.dom.Node;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// --- ORIGINAL FUNCTIONALITY PRESERVED AS STATIC METHODS ---
+
+class ImageCipherHelper {
+    
+    // Convert JPEG to PNG before encryption (for images only)
+    public static void convertJpegToPng(String jpegPath, String pngPath) {
+        try {
+            BufferedImage image = ImageIO.read(new File(jpegPath));
+            ImageIO.write(image, "png", new File(pngPath));
+            System.out.println(" JPEG converted to PNG: " + pngPath);
+        } catch (IOException e) {
+            System.out.println(" Conversion error: " + e.getMessage());
+        }
+    }
+    
+    // Original Image encryption (file-based)
+    public static void encryptImage(String inputPath, String outputPath, String password) {
+        try {
+            BufferedImage image = readImage(new File(inputPath));
+            if (image == null) {
+                System.out.println("Error: Could not read image. Ensure path is correct.");
+                return;
+            }
+
+            BufferedImage scrambledImage = new ImageCipher().encrypt(image, password);
+            
+            // Always save as PNG to preserve encryption
+            writeImage(scrambledImage, "png", new File(outputPath));
+            System.out.println(" Image encryption completed!");
+            
+        } catch (IOException | CryptoException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
+    // Original Image decryption (file-based)
+    public static void decryptImage(String inputPath, String outputPath, String password) {
+        try {
+            BufferedImage image = readImage(new File(inputPath));
+            if (image == null) {
+                System.out.println("Error: Could not read image.");
+                return;
+            }
+            
+            BufferedImage decryptedImage = new ImageCipher().decrypt(image, password);
+            
+            // Save decrypted image (can be JPEG now)
+            String extension = "png"; // Default to png
+            if(outputPath.contains(".")) {
+                extension = outputPath.substring(outputPath.lastIndexOf(".") + 1);
+            }
+            writeImage(decryptedImage, extension, new File(outputPath));
+            System.out.println(" Image decryption completed!");
+            
+        } catch (IOException | CryptoException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // --- Original Private Helper Methods (now package-private for access) ---
+
+    // java.util.Random's LCG, stepped inline: nextInt(256) is the top 8 of its 48 state bits.
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private static final String TEXT_KEYWORD = "InfernoCrypt";
+    private static final int BAND_PIXELS = 64 * 1024;
+
+    // ImageWriter lookup walks the IIORegistry; a writer is reusable once reset.
+    private static final ThreadLocal<Map<String, ImageWriter>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Reads row segments of an image as packed 0xRRGGBB ints. 8-bit sRGB
+     * images with interleaved bytes, as ImageIO decodes PNG, JPEG and TIFF
+     * into, are unpacked straight from their raster, TYPE_INT_RGB is copied,
+     * anything else goes through getRGB. Safe to use from several threads.
+     */
+    interface RowSource {
+        void read(int x, int y, int width, int[] row);
+    }
+
+    static RowSource rows(BufferedImage image) {
+        Raster raster = image.getRaster();
+        boolean untranslated = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0;
+        if (image.getType() == BufferedImage.TYPE_INT_RGB && untranslated
+                && raster.getDataBuffer() instanceof DataBufferInt
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+            int base = raster.getDataBuffer().getOffset();
+            int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            return (x0, y, width, row) -> {
+                int p = base + y * stride + x0;
+                for (int x = 0; x < width; x++) {
+                    row[x] = data[p + x] & 0xffffff;
+                }
+            };
+        }
+        ColorModel colorModel = image.getColorModel();
+        if (colorModel instanceof ComponentColorModel && colorModel.getColorSpace().isCS_sRGB()
+                && !colorModel.isAlphaPremultiplied() && raster.getNumBands() >= 3 && untranslated
+                && raster.getSampleModel() instanceof ComponentSampleModel
+                && raster.getDataBuffer() instanceof DataBufferByte
+                && raster.getDataBuffer().getNumBanks() == 1) {
+            ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+            byte[] bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+            int[] bandOffsets = model.getBandOffsets();
+            int red = bandOffsets[0];
+            int green = bandOffsets[1];
+            int blue = bandOffsets[2];
+            int pixelStride = model.getPixelStride();
+            int scanlineStride = model.getScanlineStride();
+            int base = raster.getDataBuffer().getOffset();
+            return (x0, y, width, row) -> {
+                int p = base + y * scanlineStride + x0 * pixelStride;
+                for (int x = 0; x < width; x++, p += pixelStride) {
+                    row[x] = (bytes[p + red] & 0xff) << 16 | (bytes[p + green] & 0xff) << 8 | (bytes[p + blue] & 0xff);
+                }
+            };
+        }
+        return (x0, y, width, row) -> {
+            image.getRGB(x0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                row[x] &= 0xffffff;
+            }
+        };
+    }
+
+    /**
+     * A TYPE_INT_RGB image carrying {@code header} as {@link ImageCipher#HEADER_PROPERTY}.
+     */
+    static BufferedImage rgbImage(int width, int height, String header) {
+        DirectColorModel model = new DirectColorModel(24, 0xff0000, 0xff00, 0xff);
+        Hashtable<String, Object> properties = new Hashtable<>();
+        properties.put(ImageCipher.HEADER_PROPERTY, header);
+        return new BufferedImage(model, model.createCompatibleWritableRaster(width, height), false, properties);
+    }
+
+    static String header(BufferedImage image) {
+        Object header = image.getProperty(ImageCipher.HEADER_PROPERTY);
+        return header instanceof String ? (String) header : null;
+    }
+
+    /**
+     * Decodes an image like {@link ImageIO#read(InputStream)}, re-attaching a
+     * format 2 header found in its text metadata as an image property. The
+     * stream is buffered in memory rather than in ImageIO's temporary file.
+     */
+    static BufferedImage readImage(InputStream in) throws IOException {
+        return readImage(new MemoryCacheImageInputStream(in));
+    }
+
+    static BufferedImage readImage(File file) throws IOException {
+        return readImage(new FileImageInputStream(file));
+    }
+
+    private static BufferedImage readImage(ImageInputStream stream) throws IOException {
+        try (stream) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, false);
+                BufferedImage image = reader.read(0);
+                String header = textEntry(reader.getImageMetadata(0));
+                if (header == null) {
+                    return image;
+                }
+                Hashtable<String, Object> properties = new Hashtable<>();
+                properties.put(ImageCipher.HEADER_PROPERTY, header);
+                return new BufferedImage(image.getColorModel(), image.getRaster(),
+                        image.isAlphaPremultiplied(), properties);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static void writePng(BufferedImage image, OutputStream out) throws IOException {
+        writeImage(image, "png", out);
+    }
+
+    static void writeImage(BufferedImage image, String format, OutputStream out) throws IOException {
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writeImage(image, format, stream);
+        }
+    }
+
+    static void writeImage(BufferedImage image, String format, File file) throws IOException {
+        checkHeaderKept(image, format.toLowerCase());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            try (ImageOutputStream stream = new FileImageOutputStream(raf)) {
+                writeImage(image, format, stream);
+            }
+        }
+    }
+
+    /**
+     * Encodes {@code image} with this thread's writer for {@code format},
+     * keeping its format 2 header, if any; formats that cannot hold the
+     * header are refused rather than written without it.
+     */
+    private static void writeImage(BufferedImage image, String format, ImageOutputStream stream)
+            throws IOException {
+        String name = format.toLowerCase();
+        checkHeaderKept(image, name);
+        ImageWriter writer = writer(name);
+        try {
+            writer.setOutput(stream);
+            IIOMetadata metadata = headerMetadata(writer, ImageTypeSpecifier.createFromRenderedImage(image),
+                    null, name, header(image));
+            writer.write(null, new IIOImage(image, null, metadata), null);
+        } finally {
+            writer.reset();
+        }
+    }
+
+    static boolean keepsHeader(String format) {
+        return "png".equals(format) || "tif".equals(format) || "tiff".equals(format);
+    }
+
+    private static void checkHeaderKept(BufferedImage image, String format) throws IOException {
+        if (header(image) != null && !keepsHeader(format)) {
+            throw new IOException("Format " + format + " cannot keep the format 2 header; write PNG or TIFF");
+        }
+    }
+
+    /**
+     * Image metadata carrying {@code header}: a text chunk in PNG, the
+     * ImageDescription tag in TIFF. Null when there is no header to keep.
+     */
+    static IIOMetadata headerMetadata(ImageWriter writer, ImageTypeSpecifier type, ImageWriteParam param,
+                                      String format, String header) throws IOException {
+        String keyword;
+        String value;
+        if (header == null) {
+            return null;
+        } else if ("png".equals(format)) {
+            keyword = TEXT_KEYWORD;
+            value = header;
+        } else if ("tif".equals(format) || "tiff".equals(format)) {
+            keyword = "ImageDescription";
+            value = TEXT_KEYWORD + ":" + header;
+        } else {
+            return null;
+        }
+        IIOMetadata metadata = writer.getDefaultImageMetadata(type, param == null ? writer.getDefaultWriteParam() : param);
+        IIOMetadataNode entry = new IIOMetadataNode("TextEntry");
+        entry.setAttribute("keyword", keyword);
+        entry.setAttribute("value", value);
+        IIOMetadataNode text = new IIOMetadataNode("Text");
+        text.appendChild(entry);
+        IIOMetadataNode root = new IIOMetadataNode(IIOMetadataFormatImpl.standardMetadataFormatName);
+        root.appendChild(text);
+        metadata.mergeTree(IIOMetadataFormatImpl.standardMetadataFormatName, root);
+        return metadata;
+    }
+
+    static ImageWriter writer(String format) throws IOException {
+        Map<String, ImageWriter> writers = WRITERS.get();
+        ImageWriter writer = writers.get(format);
+        if (writer == null) {
+            Iterator<ImageWriter> candidates = ImageIO.getImageWritersByFormatName(format);
+            if (!candidates.hasNext()) {
+                throw new IOException("No image writer for format: " + format);
+            }
+            writer = candidates.next();
+            writers.put(format, writer);
+        }
+        return writer;
+    }
+
+    /**
+     * The format 2 header stored by {@link #headerMetadata}, or null.
+     */
+    static String textEntry(IIOMetadata metadata) {
+        if (metadata == null || !metadata.isStandardMetadataFormatSupported()) {
+            return null;
+        }
+        Node root = metadata.getAsTree(IIOMetadataFormatImpl.standardMetadataFormatName);
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (!"Text".equals(node.getNodeName())) {
+                continue;
+            }
+            for (Node entry = node.getFirstChild(); entry != null; entry = entry.getNextSibling()) {
+                IIOMetadataNode element = (IIOMetadataNode) entry;
+                String keyword = element.getAttribute("keyword");
+                String value = element.getAttribute("value");
+                if (TEXT_KEYWORD.equals(keyword)) {
+                    return value;
+                }
+                if ("ImageDescription".equals(keyword) && value.startsWith(TEXT_KEYWORD + ":")) {
+                    return value.substring(TEXT_KEYWORD.length() + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    static int[] data(BufferedImage rgb) {
+        return ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+    }
+
+    // The encrypt kernels below read each source row once, apply the keystream
+    // and write every pixel straight to its scrambled position: destination
+    // row yMap[y] holds source row y with its columns permuted by xMap. The
+    // only memory besides input and output is a row buffer per thread.
+
+    static void encryptAndScramble(BufferedImage image, int[] dst, String password) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[][] maps = scrambleMaps(width, height, new Random(password.hashCode() + 1));
+        int[] xMap = maps[0];
+        int[] yMap = maps[1];
+        RowSource source = rows(image);
+        int[] row = new int[width];
+        int[] chars = passwordBytes(password);
+        int length = chars.length;
+        long seed = (password.hashCode() ^ MULTIPLIER) & MASK;
+        for (int y = 0; y < height; y++) {
+            source.read(0, y, width, row);
+            int base = yMap[y] * width;
+            int c = y % length;
+            for (int x = 0; x < width; x++) {
+                seed = (seed * MULTIPLIER + ADDEND) & MASK;
+                int key1 = (int) (seed >>> 40);
+                int key2 = chars[c];
+                int key3 = (x * y + length) % 256;
+                if (++c == length) {
+                    c = 0;
+                }
+                int k = key1 ^ key2 ^ key3;
+                int rgb = row[x];
+                int red = ((((rgb >> 16) & 0xff) ^ k) % 256 + key1) % 256;
+                int green = ((((rgb >> 8) & 0xff) ^ k) % 256 + key2) % 256;
+                int blue = (((rgb & 0xff) ^ k) % 256 + key3) % 256;
+                dst[base + xMap[x]] = ((red << 16) | (green << 8) | blue) & 0xffffff;
+            }
+        }
+    }
+
+    static void unscrambleAndDecrypt(BufferedImage image, int[] dst, String password) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[][] maps = scrambleMaps(width, height, new Random(password.hashCode() + 1));
+        int[] xMap = maps[0];
+        int[] yMap = maps[1];
+        RowSource source = rows(image);
+        int[] row = new int[width];
+        int[] chars = passwordBytes(password);
+        int length = chars.length;
+        long seed = (password.hashCode() ^ MULTIPLIER) & MASK;
+        for (int y = 0, i = 0; y < height; y++) {
+            source.read(0, yMap[y], width, row);
+            int c = y % length;
+            for (int x = 0; x < width; x++, i++) {
+                seed = (seed * MULTIPLIER + ADDEND) & MASK;
+                int key1 = (int) (seed >>> 40);
+                int key2 = chars[c];
+                int key3 = (x * y + length) % 256;
+                if (++c == length) {
+                    c = 0;
+                }
+                int k = key1 ^ key2 ^ key3;
+                int rgb = row[xMap[x]];
+                int red = (((((rgb >> 16) & 0xff) - key1 + 256) % 256) ^ k) % 256;
+                int green = (((((rgb >> 8) & 0xff) - key2 + 256) % 256) ^ k) % 256;
+                int blue = ((((rgb & 0xff) - key3 + 256) % 256) ^ k) % 256;
+                dst[i] = ((red << 16) | (green << 8) | blue) & 0xffffff;
+            }
+        }
+    }
+
+    static void encryptAndScramble(BufferedImage image, int[] dst, ImageKeystream keystream, boolean parallel) {
+        int width = image.getWidth();
+        int[][] maps = scrambleMaps(width, image.getHeight(), new Random(keystream.scrambleSeed()));
+        int[] xMap = maps[0];
+        int[] yMap = maps[1];
+        RowSource source = rows(image);
+        forEachBand(image.getHeight(), width, parallel, (from, to) -> {
+            int[] row = new int[width];
+            int[] mask = new int[width];
+            for (int y = from; y < to; y++) {
+                source.read(0, y, width, row);
+                keystream.fill((long) y * width, width, mask);
+                int base = yMap[y] * width;
+                for (int x = 0; x < width; x++) {
+                    dst[base + xMap[x]] = row[x] ^ mask[x];
+                }
+            }
+        });
+    }
+
+    static void unscrambleAndDecrypt(BufferedImage image, int[] dst, ImageKeystream keystream, boolean parallel) {
+        int width = image.getWidth();
+        int[][] maps = scrambleMaps(width, image.getHeight(), new Random(keystream.scrambleSeed()));
+        int[] xMap = maps[0];
+        int[] yMap = maps[1];
+        RowSource source = rows(image);
+        forEachBand(image.getHeight(), width, parallel, (from, to) -> {
+            int[] row = new int[width];
+            int[] mask = new int[width];
+            for (int y = from; y < to; y++) {
+                source.read(0, yMap[y], width, row);
+                keystream.fill((long) y * width, width, mask);
+                int base = y * width;
+                for (int x = 0; x < width; x++) {
+                    dst[base + x] = row[xMap[x]] ^ mask[x];
+                }
+            }
+        });
+    }
+
+    private interface Band {
+        void run(int from, int to);
+    }
+
+    /**
+     * Splits rows into bands of about {@link #BAND_PIXELS} pixels, run on the
+     * common ForkJoin pool when {@code parallel} is set.
+     */
+    private static void forEachBand(int height, int width, boolean parallel, Band band) {
+        int rows = Math.max(1, BAND_PIXELS / Math.max(1, width));
+        int bands = (height + rows - 1) / rows;
+        IntStream range = IntStream.range(0, bands);
+        (parallel && bands > 1 ? range.parallel() : range).forEach(b -> {
+            int from = b * rows;
+            band.run(from, Math.min(height, from + rows));
+        });
+    }
+
+    static int[][] scrambleMaps(int width, int height, Random random) {
+        int[] xMap = new int[width];
+        int[] yMap = new int[height];
+        for (int i = 0; i < width; i++) xMap[i] = i;
+        for (int i = 0; i < height; i++) yMap[i] = i;
+
+        shuffleArray(xMap, random);
+        shuffleArray(yMap, random);
+        return new int[][] {xMap, yMap};
+    }
+
+    private static int[] passwordBytes(String password) {
+        int[] chars = new int[password.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = password.charAt(i) & 0xFF;
+        }
+        return chars;
+    }
+
+    private static void shuffleArray(int[] array, Random random) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int index = random.nextInt(i + 1);
+            int temp = array[index];
+            array[index] = array[i];
+            array[i] = temp;
+        }
+    }
+}
\ No newline at end of file
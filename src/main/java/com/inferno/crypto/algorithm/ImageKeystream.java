@@ -0,0 +1,160 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.engine.CipherEngine;
+import com.inferno.crypto.engine.Hkdf;
+import com.inferno.crypto.engine.RandomService;
+import com.inferno.crypto.exception.CryptoException;
+import com.inferno.crypto.hashing.PBKDF2Hasher;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Pixel keystream of {@link ImageCipher} format 2.
+ *
+ * Pixel {@code i} is XORed with bytes {@code 3i..3i+2} of AES-256 in counter
+ * mode, so any pixel range can be produced on its own and an image can be
+ * split into bands that run on the common ForkJoin pool. The AES key and the seed
+ * of the pixel scramble come from PBKDF2-HMAC-SHA256 over the password and a
+ * random per-image salt, expanded with HKDF. Salt and iteration count travel
+ * in the header string {@code "2:<iterations>:<base64 salt>"}, followed by
+ * {@code ":<tile size>"} when the scramble is tile-local.
+ *
+ * Deriving a keystream costs a full PBKDF2 run. Callers that encrypt or
+ * decrypt repeatedly may derive one up front and pass it to
+ * {@link ImageCipher#encrypt(java.awt.image.BufferedImage, ImageKeystream)}; a keystream from
+ * {@link #create} must still encrypt only one image, since two images under
+ * the same salt share their masks.
+ */
+public final class ImageKeystream {
+
+    static final int VERSION = 2;
+
+    /**
+     * Largest tile edge accepted, whether configured or read from a header;
+     * a tile is scrambled and buffered whole.
+     */
+    public static final int MAX_TILE_SIZE = 8192;
+
+    private static final int ITERATIONS = 100_000;
+    private static final int MAX_ITERATIONS = 10_000_000;
+    private static final int SALT_BYTES = 16;
+    private static final int AES_KEY_BYTES = 32;
+    private static final int BLOCK = 16;
+    private static final String TRANSFORMATION = "AES/ECB/NoPadding";
+    private static final byte[] INFO = "InfernoCrypt image v2".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[0]);
+
+    private final String header;
+    private final int tileSize;
+    private final SecretKeySpec key;
+    private final long scrambleSeed;
+
+    private ImageKeystream(String password, int iterations, byte[] salt, int tileSize) throws CryptoException {
+        String header = VERSION + ":" + iterations + ":" + Base64.getEncoder().encodeToString(salt);
+        this.header = tileSize > 0 ? header + ":" + tileSize : header;
+        this.tileSize = tileSize;
+        byte[] master = new PBKDF2Hasher(iterations, 256).hash(password, salt);
+        byte[] okm = null;
+        try {
+            okm = Hkdf.expand(master, INFO, AES_KEY_BYTES + 8);
+            this.key = new SecretKeySpec(okm, 0, AES_KEY_BYTES, "AES");
+            long seed = 0;
+            for (int i = AES_KEY_BYTES; i < okm.length; i++) {
+                seed = (seed << 8) | (okm[i] & 0xff);
+            }
+            this.scrambleSeed = seed;
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Image key derivation failed: " + e.getMessage(), e);
+        } finally {
+            Arrays.fill(master, (byte) 0);
+            if (okm != null) {
+                Arrays.fill(okm, (byte) 0);
+            }
+        }
+    }
+
+    public static ImageKeystream create(String password) throws CryptoException {
+        return create(password, 0);
+    }
+
+    public static ImageKeystream create(String password, int tileSize) throws CryptoException {
+        if (tileSize < 0 || tileSize > MAX_TILE_SIZE) {
+            throw new CryptoException("Tile size must be between 0 and " + MAX_TILE_SIZE + ": " + tileSize);
+        }
+        return new ImageKeystream(password, ITERATIONS, RandomService.bytes(SALT_BYTES), tileSize);
+    }
+
+    public static ImageKeystream fromHeader(String password, String header) throws CryptoException {
+        String[] fields = header.split(":");
+        try {
+            if (fields.length < 3 || fields.length > 4 || Integer.parseInt(fields[0]) != VERSION) {
+                throw new CryptoException("Unsupported image format: " + header);
+            }
+            int iterations = Integer.parseInt(fields[1]);
+            byte[] salt = Base64.getDecoder().decode(fields[2]);
+            int tileSize = fields.length == 4 ? Integer.parseInt(fields[3]) : 0;
+            if (iterations < 1 || iterations > MAX_ITERATIONS || salt.length != SALT_BYTES
+                    || tileSize < 0 || tileSize > MAX_TILE_SIZE) {
+                throw new CryptoException("Invalid image header: " + header);
+            }
+            return new ImageKeystream(password, iterations, salt, tileSize);
+        } catch (IllegalArgumentException e) {
+            throw new CryptoException("Invalid image header: " + header, e);
+        }
+    }
+
+    public String header() {
+        return header;
+    }
+
+    /**
+     * Edge of the square tiles the scramble stays within; 0 for whole-image.
+     */
+    public int tileSize() {
+        return tileSize;
+    }
+
+    long scrambleSeed() {
+        return scrambleSeed;
+    }
+
+    /**
+     * Writes the 24-bit masks of pixels {@code from .. from + count - 1} into
+     * {@code masks}. Any range can be asked for, from any thread.
+     */
+    void fill(long from, int count, int[] masks) {
+        long start = 3 * from;
+        int skip = (int) (start % BLOCK);
+        int length = (skip + 3 * count + BLOCK - 1) & -BLOCK;
+        if (BUFFERS.get().length < length) {
+            BUFFERS.set(new byte[length]);
+        }
+        byte[] stream = BUFFERS.get();
+        long counter = start / BLOCK;
+        for (int off = 0; off < length; off += BLOCK, counter++) {
+            long c = counter;
+            for (int i = 0; i < BLOCK - 8; i++) {
+                stream[off + i] = 0;
+            }
+            for (int i = BLOCK - 1; i >= BLOCK - 8; i--) {
+                stream[off + i] = (byte) c;
+                c >>>= 8;
+            }
+        }
+        try {
+            CipherEngine.withKeyed(TRANSFORMATION, Cipher.ENCRYPT_MODE, key,
+                    aes -> aes.doFinal(stream, 0, length, stream, 0));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES keystream failed", e);
+        }
+        for (int i = 0, k = skip; i < count; i++, k += 3) {
+            masks[i] = (stream[k] & 0xff) << 16 | (stream[k + 1] & 0xff) << 8 | (stream[k + 2] & 0xff);
+        }
+    }
+}
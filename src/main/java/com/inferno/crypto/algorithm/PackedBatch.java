@@ -0,0 +1,88 @@
+package com.inferno.crypto.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch of records stored back to back in one array. Record {@code i}
+ * occupies {@code data[offsets[i] .. offsets[i + 1])}.
+ */
+public final class PackedBatch {
+
+    private final byte[] data;
+    private final int[] offsets;
+
+    public PackedBatch(byte[] data, int[] offsets) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] > data.length) {
+            throw new IllegalArgumentException("Offsets do not describe the data array");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException("Offsets must be non-decreasing");
+            }
+        }
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    public static PackedBatch of(List<byte[]> records) {
+        int[] offsets = new int[records.size() + 1];
+        long total = 0;
+        for (int i = 0; i < records.size(); i++) {
+            total += records.get(i).length;
+            offsets[i + 1] = toIntExact(total);
+        }
+        byte[] data = new byte[(int) total];
+        for (int i = 0; i < records.size(); i++) {
+            byte[] record = records.get(i);
+            System.arraycopy(record, 0, data, offsets[i], record.length);
+        }
+        return new PackedBatch(data, offsets);
+    }
+
+    static int toIntExact(long length) {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Batch exceeds the maximum array size");
+        }
+        return (int) length;
+    }
+
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    public int length(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    public byte[] get(int index) {
+        return Arrays.copyOfRange(data, offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * The backing array; not copied.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * The {@code size() + 1} record boundaries; not copied.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public List<byte[]> toList() {
+        List<byte[]> records = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            records.add(get(i));
+        }
+        return records;
+    }
+}
@@ -1,12 +1,41 @@
 package com.inferno.crypto.algorithm;
 
+import com.inferno.crypto.engine.CipherEngine;
+import com.inferno.crypto.engine.RandomService;
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+import com.inferno.crypto.io.stream.SegmentedGcm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
+import java.util.Arrays;
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 
 public class RSACipher extends AsymmetricCipher {
 
+    /**
+     * Envelope layout: {@code MAGIC | version | wrapped key length (2) | wrapped key}
+     * followed by the body in the {@link SegmentedGcm} format under a fresh
+     * 256-bit data key. The data key is wrapped with RSA-OAEP (SHA-256).
+     */
+    private static final byte[] ENVELOPE_MAGIC = "INFRSA".getBytes(StandardCharsets.US_ASCII);
+    private static final int ENVELOPE_VERSION = 1;
+    private static final String WRAP_TRANSFORMATION = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
+    private static final int DATA_KEY_BYTES = 32;
+
     private int keySize;
     private String paddingScheme = "RSA/ECB/PKCS1Padding";
+    private boolean envelope;
+    private int segmentSize = SegmentedGcm.DEFAULT_SEGMENT_SIZE;
 
     public RSACipher(int keySize) {
         this.keySize = keySize;
@@ -16,6 +45,24 @@ public class RSACipher extends AsymmetricCipher {
         this.paddingScheme = scheme;
     }
 
+    /**
+     * In envelope mode {@link #encrypt(byte[], Key)} and {@link #decrypt(byte[], Key)}
+     * produce and consume envelopes instead of a single RSA block, so payloads
+     * of any size can be encrypted at AES speed.
+     */
+    public void setEnvelopeMode(boolean envelope) {
+        this.envelope = envelope;
+    }
+
+    public boolean isEnvelopeMode() {
+        return envelope;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        SegmentedGcm.checkSegmentSize(segmentSize);
+        this.segmentSize = segmentSize;
+    }
+
     @Override
     protected KeyPair doGenerateKeyPair(int keySize) throws Exception {
         KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
@@ -28,16 +75,83 @@ public class RSACipher extends AsymmetricCipher {
 
     @Override
     public byte[] encrypt(byte[] data, Key key) throws Exception {
-        Cipher cipher = Cipher.getInstance(paddingScheme);
-        cipher.init(Cipher.ENCRYPT_MODE, key);
-        return cipher.doFinal(data);
+        if (envelope) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    (int) Math.min(Integer.MAX_VALUE - 8, data.length + 1024L));
+            encryptEnvelope(new ByteArrayInputStream(data), out, (PublicKey) key);
+            return out.toByteArray();
+        }
+        return CipherEngine.withKeyed(paddingScheme, Cipher.ENCRYPT_MODE, key, c -> c.doFinal(data));
     }
 
     @Override
     public byte[] decrypt(byte[] data, Key key) throws Exception {
-        Cipher cipher = Cipher.getInstance(paddingScheme);
-        cipher.init(Cipher.DECRYPT_MODE, key);
-        return cipher.doFinal(data);
+        if (envelope) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            decryptEnvelope(new ByteArrayInputStream(data), out, (PrivateKey) key);
+            return out.toByteArray();
+        }
+        return CipherEngine.withKeyed(paddingScheme, Cipher.DECRYPT_MODE, key, c -> c.doFinal(data));
+    }
+
+    // === Envelopes ===
+
+    /**
+     * Encrypts {@code in} to {@code recipient}: one RSA operation wraps a fresh
+     * AES-GCM data key, and the body is streamed through AES in constant memory.
+     *
+     * @return the number of plaintext bytes encrypted
+     */
+    public long encryptEnvelope(InputStream in, OutputStream out, PublicKey recipient) throws Exception {
+        byte[] raw = RandomService.bytes(DATA_KEY_BYTES);
+        SecretKey dataKey = new SecretKeySpec(raw, "AES");
+        Arrays.fill(raw, (byte) 0);
+
+        byte[] wrapped = CipherEngine.withKeyed(WRAP_TRANSFORMATION, Cipher.WRAP_MODE, recipient,
+                c -> c.wrap(dataKey));
+        DataOutputStream header = new DataOutputStream(out);
+        header.write(ENVELOPE_MAGIC);
+        header.writeByte(ENVELOPE_VERSION);
+        header.writeShort(wrapped.length);
+        header.write(wrapped);
+
+        return SegmentedGcm.encrypt(in, out, dataKey, segmentSize);
+    }
+
+    /**
+     * @return the number of plaintext bytes written to {@code out}
+     */
+    public long decryptEnvelope(InputStream in, OutputStream out, PrivateKey key) throws Exception {
+        DataInputStream header = new DataInputStream(in);
+        byte[] wrapped;
+        try {
+            byte[] magic = new byte[ENVELOPE_MAGIC.length];
+            header.readFully(magic);
+            if (!Arrays.equals(magic, ENVELOPE_MAGIC)) {
+                throw envelopeError("Not an RSA envelope", DecryptionFailureReason.FORMAT_ERROR);
+            }
+            if (header.readUnsignedByte() != ENVELOPE_VERSION) {
+                throw envelopeError("Unsupported envelope version", DecryptionFailureReason.VERSION_MISMATCH);
+            }
+            wrapped = new byte[header.readUnsignedShort()];
+            header.readFully(wrapped);
+        } catch (EOFException e) {
+            throw envelopeError("Truncated envelope header", DecryptionFailureReason.SIZE_ERROR);
+        }
+
+        Key dataKey;
+        try {
+            dataKey = CipherEngine.withKeyed(WRAP_TRANSFORMATION, Cipher.UNWRAP_MODE, key,
+                    c -> c.unwrap(wrapped, "AES", Cipher.SECRET_KEY));
+        } catch (GeneralSecurityException e) {
+            throw new DecryptionFailedException("Could not unwrap the data key", e,
+                    "RSA", "OAEP", DecryptionFailureReason.INCORRECT_KEY);
+        }
+        return SegmentedGcm.decrypt(in, out, dataKey);
+    }
+
+    private static DecryptionFailedException envelopeError(String message, DecryptionFailureReason reason) {
+        return new DecryptionFailedException(message, "RSA", "OAEP", reason);
     }
 
     @Override
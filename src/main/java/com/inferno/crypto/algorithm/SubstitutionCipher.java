@@ -1,15 +1,66 @@
 package com.inferno.crypto.algorithm;
 
+import com.inferno.crypto.engine.ByteTable;
+import com.inferno.crypto.engine.RandomService;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 
+/**
+ * Monoalphabetic substitution over bytes. The key map is compiled once into
+ * forward and inverse 256-entry tables; bytes the map does not mention keep
+ * their value where possible and otherwise take the targets the map left free,
+ * so the tables are always a bijection.
+ */
 public class SubstitutionCipher extends ClassicalCipher {
 
     private final Map<Character,Character> map;
+    private final ByteTable table;
 
     public SubstitutionCipher(Map<Character, Character> map) {
-        this.map = map;
+        this.map = Collections.unmodifiableMap(new HashMap<>(map));
+        this.table = new ByteTable(compile(map));
+    }
+
+    private static byte[] compile(Map<Character, Character> map) {
+        int[] forward = new int[256];
+        Arrays.fill(forward, -1);
+        boolean[] taken = new boolean[256];
+        for (Map.Entry<Character, Character> e : map.entrySet()) {
+            int from = e.getKey();
+            int to = e.getValue();
+            if (from > 0xff || to > 0xff) {
+                throw new IllegalArgumentException("Substitution keys must map single-byte characters");
+            }
+            if (taken[to]) {
+                throw new IllegalArgumentException("Substitution key maps two characters to '" + (char) to + "'");
+            }
+            forward[from] = to;
+            taken[to] = true;
+        }
+        for (int c = 0; c < 256; c++) {
+            if (forward[c] < 0 && !taken[c]) {
+                forward[c] = c;
+                taken[c] = true;
+            }
+        }
+        for (int c = 0, free = 0; c < 256; c++) {
+            if (forward[c] < 0) {
+                while (taken[free]) {
+                    free++;
+                }
+                forward[c] = free;
+                taken[free] = true;
+            }
+        }
+        byte[] table = new byte[256];
+        for (int c = 0; c < 256; c++) {
+            table[c] = (byte) forward[c];
+        }
+        return table;
     }
 
     @Override
@@ -19,29 +70,41 @@ public class SubstitutionCipher extends ClassicalCipher {
 
     @Override
     public byte[] encrypt(byte[] data, java.security.Key ignored) {
-        String text = new String(data);
-        StringBuilder out = new StringBuilder();
-        for (char c : text.toCharArray())
-            out.append(map.getOrDefault(c,c));
-        return out.toString().getBytes();
+        return table.encrypt(data);
     }
 
     @Override
     public byte[] decrypt(byte[] data, java.security.Key ignored) {
-        Map<Character,Character> inv = new HashMap<>();
-        map.forEach((k,v)->inv.put(v,k));
-        String text = new String(data);
-        StringBuilder out = new StringBuilder();
-        for (char c : text.toCharArray())
-            out.append(inv.getOrDefault(c,c));
-        return out.toString().getBytes();
+        return table.decrypt(data);
+    }
+
+    @Override
+    protected void transform(byte[] src, int srcOff, int len, byte[] dst, int dstOff,
+                             long position, boolean encrypt) {
+        if (encrypt) {
+            table.encrypt(src, srcOff, len, dst, dstOff);
+        } else {
+            table.decrypt(src, srcOff, len, dst, dstOff);
+        }
     }
 
+    /**
+     * A random permutation of printable ASCII (32..126).
+     */
     public static Map<Character,Character> generateRandomMap() {
+        Random rnd = RandomService.current();
+        char[] targets = new char[95];
+        for (int i = 0; i < targets.length; i++)
+            targets[i] = (char) (i + 32);
+        for (int i = targets.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            char t = targets[i];
+            targets[i] = targets[j];
+            targets[j] = t;
+        }
         Map<Character,Character> map = new HashMap<>();
-        Random rnd = new Random();
         for (char c = 32; c < 127; c++)
-            map.put(c,(char)(rnd.nextInt(95)+32));
+            map.put(c, targets[c - 32]);
         return map;
     }
 
@@ -59,4 +122,4 @@ public class SubstitutionCipher extends ClassicalCipher {
     public int getKeySize() {
         return map.size();
     }
-}
\ No newline at end of file
+}
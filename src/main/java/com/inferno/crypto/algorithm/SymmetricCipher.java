@@ -1,19 +1,62 @@
 package com.inferno.crypto.algorithm;
 
+import com.inferno.crypto.engine.RandomService;
 import com.inferno.crypto.mode.EncryptionMode;
-import java.security.SecureRandom;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public abstract class SymmetricCipher implements CipherAlgorithm {
 
     protected byte[] key;
     protected EncryptionMode mode;
+    private volatile SecretKeySpec keySpec;
 
     public void setKey(byte[] key) {
         if (key == null || key.length == 0) {
             throw new IllegalArgumentException("Symmetric key must not be null/empty");
         }
         this.key = Arrays.copyOf(key, key.length);
+        this.keySpec = null;
+    }
+
+    protected SecretKeySpec getKeySpec() {
+        SecretKeySpec spec = keySpec;
+        if (spec == null) {
+            spec = new SecretKeySpec(key, getAlgorithmName());
+            keySpec = spec;
+        }
+        return spec;
+    }
+
+    /**
+     * A freshly initialised engine for incremental (update/doFinal) use, or
+     * null if this cipher cannot be streamed. Stream engines are never taken
+     * from the per-thread cache, since a stream may stay open across calls.
+     */
+    public Cipher createStreamCipher(int opmode, byte[] iv) throws Exception {
+        return null;
+    }
+
+    /**
+     * Length of the IV written in front of a stream, 0 if none is needed.
+     */
+    public int getStreamIVLength() {
+        return 0;
+    }
+
+    /**
+     * Moves {@code length} bytes within {@code buffer} from index {@code from}
+     * to index {@code to}; the ranges may overlap. The in-place methods use it
+     * to make room for, or drop, an IV in front of the body.
+     */
+    protected static void move(ByteBuffer buffer, int from, int to, int length) {
+        ByteBuffer src = buffer.duplicate();
+        src.limit(from + length).position(from);
+        ByteBuffer dst = buffer.duplicate();
+        dst.limit(to + length).position(to);
+        dst.put(src);
     }
 
     public void setMode(EncryptionMode mode) {
@@ -24,9 +67,7 @@ public abstract class SymmetricCipher implements CipherAlgorithm {
     }
 
     public byte[] generateKey(int keySizeBytes) {
-        SecureRandom random = new SecureRandom();
-        byte[] newKey = new byte[keySizeBytes];
-        random.nextBytes(newKey);
+        byte[] newKey = RandomService.bytes(keySizeBytes);
         setKey(newKey);
         return newKey;
     }
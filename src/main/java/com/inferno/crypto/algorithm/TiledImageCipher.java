@@ -0,0 +1,389 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.algorithm.ImageCipherHelper.RowSource;
+import com.inferno.crypto.exception.CryptoException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Vector;
+import java.util.stream.IntStream;
+
+/**
+ * Tile-local variant of {@link ImageCipher} format 2, for images too large to
+ * decode whole.
+ *
+ * The keystream is the same as for whole images, addressed by global pixel
+ * index; the scramble permutes rows and columns within each square tile
+ * instead of across the image. The file paths read the source one row of
+ * tiles at a time with {@link ImageReadParam#setSourceRegion}, transform a tile
+ * when the writer asks for it, and write a tiled TIFF, so memory is bounded by
+ * a row of tiles rather than the image. Region reads are cheap for tiled or
+ * striped TIFF; PNG and JPEG readers decode from the top for every row of
+ * tiles.
+ */
+final class TiledImageCipher {
+
+    static final int DEFAULT_TILE_SIZE = 512;
+
+    private static final String FORMAT = "tif";
+    private static final DirectColorModel RGB = new DirectColorModel(24, 0xff0000, 0xff00, 0xff);
+
+    private TiledImageCipher() {}
+
+    // === In memory ===
+
+    static void encrypt(BufferedImage image, int[] dst, ImageKeystream keystream, boolean parallel) {
+        RowSource source = ImageCipherHelper.rows(image);
+        int width = image.getWidth();
+        forEachTile(width, image.getHeight(), keystream.tileSize(), parallel, (index, x, y, w, h) ->
+                encryptTile(source, y, x, y, w, h, width, keystream, index, dst, y * width + x, width));
+    }
+
+    static void decrypt(BufferedImage image, int[] dst, ImageKeystream keystream, boolean parallel) {
+        RowSource source = ImageCipherHelper.rows(image);
+        int width = image.getWidth();
+        forEachTile(width, image.getHeight(), keystream.tileSize(), parallel, (index, x, y, w, h) ->
+                decryptTile(source, y, x, y, w, h, width, keystream, index, dst, y * width + x, width));
+    }
+
+    private interface TileTask {
+        void run(int index, int x, int y, int width, int height);
+    }
+
+    private static void forEachTile(int width, int height, int tileSize, boolean parallel, TileTask task) {
+        int columns = (width + tileSize - 1) / tileSize;
+        int tiles = columns * ((height + tileSize - 1) / tileSize);
+        IntStream range = IntStream.range(0, tiles);
+        (parallel && tiles > 1 ? range.parallel() : range).forEach(index -> {
+            int x = index % columns * tileSize;
+            int y = index / columns * tileSize;
+            task.run(index, x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y));
+        });
+    }
+
+    // === Files ===
+
+    static void encrypt(File input, File output, String password, int tileSize)
+            throws IOException, CryptoException {
+        try (ImageInputStream in = new FileImageInputStream(input)) {
+            ImageReader reader = reader(in);
+            try {
+                ImageKeystream keystream = ImageKeystream.create(password, tileSize);
+                write(new Tiles(reader, keystream, true), output, keystream.header());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decrypts a tiled image produced by {@link #encrypt(File, File, String, int)}.
+     *
+     * @return false, without writing anything, if {@code input} is not a tiled image
+     */
+    static boolean decrypt(File input, File output, String password) throws IOException, CryptoException {
+        try (ImageInputStream in = new FileImageInputStream(input)) {
+            ImageReader reader = reader(in);
+            try {
+                String header = ImageCipherHelper.textEntry(reader.getImageMetadata(0));
+                ImageKeystream keystream = header == null ? null : ImageKeystream.fromHeader(password, header);
+                if (keystream == null || keystream.tileSize() == 0) {
+                    return false;
+                }
+                write(new Tiles(reader, keystream, false), output, null);
+                return true;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader reader(ImageInputStream in) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            throw new IOException("No image reader for input");
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, false);
+        return reader;
+    }
+
+    private static void write(Tiles tiles, File output, String header) throws IOException {
+        ImageWriter writer = ImageCipherHelper.writer(FORMAT);
+        try (RandomAccessFile raf = new RandomAccessFile(output, "rw")) {
+            raf.setLength(0);
+            try (ImageOutputStream out = new FileImageOutputStream(raf)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setTiling(tiles.tileSize, tiles.tileSize, 0, 0);
+                IIOMetadata metadata = ImageCipherHelper.headerMetadata(writer,
+                        ImageTypeSpecifier.createFromRenderedImage(tiles), param, FORMAT, header);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(tiles, null, metadata), param);
+            }
+        } finally {
+            writer.reset();
+        }
+    }
+
+    // === Tile kernels ===
+
+    /**
+     * Encrypts the {@code width} x {@code height} tile at ({@code x}, {@code y})
+     * of an image {@code imageWidth} wide. Its rows are read from {@code source}
+     * starting at row {@code sourceY}; the result goes to {@code dst} at
+     * {@code dstOffset} with row stride {@code dstStride}.
+     */
+    private static void encryptTile(RowSource source, int sourceY, int x, int y, int width, int height,
+                                    int imageWidth, ImageKeystream keystream, int index,
+                                    int[] dst, int dstOffset, int dstStride) {
+        int[][] maps = ImageCipherHelper.scrambleMaps(width, height, tileRandom(keystream, index));
+        int[] xMap = maps[0];
+        int[] yMap = maps[1];
+        int[] row = new int[width];
+        int[] mask = new int[width];
+        for (int ly = 0; ly < height; ly++) {
+            source.read(x, sourceY + ly, width, row);
+            keystream.fill((long) (y + ly) * imageWidth + x, width, mask);
+            int base = dstOffset + yMap[ly] * dstStride;
+            for (int lx = 0; lx < width; lx++) {
+                dst[base + xMap[lx]] = row[lx] ^ mask[lx];
+            }
+        }
+    }
+
+    private static void decryptTile(RowSource source, int sourceY, int x, int y, int width, int height,
+                                    int imageWidth, ImageKeystream keystream, int index,
+                                    int[] dst, int dstOffset, int dstStride) {
+        int[][] maps = ImageCipherHelper.scrambleMaps(width, height, tileRandom(keystream, index));
+        int[] xMap = maps[0];
+        int[] yMap = maps[1];
+        int[] row = new int[width];
+        int[] mask = new int[width];
+        for (int ly = 0; ly < height; ly++) {
+            source.read(x, sourceY + yMap[ly], width, row);
+            keystream.fill((long) (y + ly) * imageWidth + x, width, mask);
+            int base = dstOffset + ly * dstStride;
+            for (int lx = 0; lx < width; lx++) {
+                dst[base + lx] = row[xMap[lx]] ^ mask[lx];
+            }
+        }
+    }
+
+    private static Random tileRandom(ImageKeystream keystream, int index) {
+        return new Random(keystream.scrambleSeed() ^ (index * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * The transformed image as seen by the writer: a tile is computed the
+     * first time any of its pixels is asked for, from a band of source rows
+     * read when the writer moves on to the next row of tiles.
+     */
+    private static final class Tiles implements RenderedImage {
+        private final ImageReader reader;
+        private final ImageKeystream keystream;
+        private final boolean encrypt;
+        private final int width;
+        private final int height;
+        private final int tileSize;
+        private final SampleModel sampleModel;
+
+        private int bandRow = -1;
+        private RowSource band;
+        private int tileIndex = -1;
+        private WritableRaster tile;
+
+        Tiles(ImageReader reader, ImageKeystream keystream, boolean encrypt) throws IOException {
+            this.reader = reader;
+            this.keystream = keystream;
+            this.encrypt = encrypt;
+            this.width = reader.getWidth(0);
+            this.height = reader.getHeight(0);
+            this.tileSize = keystream.tileSize();
+            this.sampleModel = RGB.createCompatibleSampleModel(tileSize, tileSize);
+        }
+
+        @Override
+        public Raster getTile(int tileX, int tileY) {
+            int index = tileY * getNumXTiles() + tileX;
+            if (index != tileIndex) {
+                tile = compute(tileX, tileY, index);
+                tileIndex = index;
+            }
+            return tile;
+        }
+
+        private WritableRaster compute(int tileX, int tileY, int index) {
+            int x = tileX * tileSize;
+            int y = tileY * tileSize;
+            int w = Math.min(tileSize, width - x);
+            int h = Math.min(tileSize, height - y);
+            if (tileY != bandRow) {
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(0, y, width, h));
+                try {
+                    band = ImageCipherHelper.rows(reader.read(0, param));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Reading rows " + y + ".." + (y + h) + " failed", e);
+                }
+                bandRow = tileY;
+            }
+            WritableRaster raster = Raster.createWritableRaster(sampleModel, new Point(x, y));
+            int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+            if (encrypt) {
+                encryptTile(band, 0, x, y, w, h, width, keystream, index, data, 0, tileSize);
+            } else {
+                decryptTile(band, 0, x, y, w, h, width, keystream, index, data, 0, tileSize);
+            }
+            return raster;
+        }
+
+        @Override
+        public Raster getData(Rectangle rect) {
+            int tileX = rect.x / tileSize;
+            int tileY = rect.y / tileSize;
+            if ((rect.x + rect.width - 1) / tileSize == tileX && (rect.y + rect.height - 1) / tileSize == tileY) {
+                return getTile(tileX, tileY).createChild(rect.x, rect.y, rect.width, rect.height,
+                        rect.x, rect.y, null);
+            }
+            WritableRaster raster = Raster.createWritableRaster(
+                    sampleModel.createCompatibleSampleModel(rect.width, rect.height), rect.getLocation());
+            for (int ty = tileY; ty <= (rect.y + rect.height - 1) / tileSize; ty++) {
+                for (int tx = tileX; tx <= (rect.x + rect.width - 1) / tileSize; tx++) {
+                    Raster source = getTile(tx, ty);
+                    Rectangle overlap = source.getBounds().intersection(rect);
+                    raster.setRect(source.createChild(overlap.x, overlap.y, overlap.width, overlap.height,
+                            overlap.x, overlap.y, null));
+                }
+            }
+            return raster;
+        }
+
+        @Override
+        public Raster getData() {
+            return getData(new Rectangle(0, 0, width, height));
+        }
+
+        @Override
+        public WritableRaster copyData(WritableRaster raster) {
+            Rectangle bounds = raster == null ? new Rectangle(0, 0, width, height) : raster.getBounds();
+            Raster data = getData(bounds);
+            if (raster == null) {
+                raster = data.createCompatibleWritableRaster(bounds.x, bounds.y, bounds.width, bounds.height);
+            }
+            raster.setRect(data);
+            return raster;
+        }
+
+        @Override
+        public Vector<RenderedImage> getSources() {
+            return null;
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            return Image.UndefinedProperty;
+        }
+
+        @Override
+        public String[] getPropertyNames() {
+            return null;
+        }
+
+        @Override
+        public ColorModel getColorModel() {
+            return RGB;
+        }
+
+        @Override
+        public SampleModel getSampleModel() {
+            return sampleModel;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public int getMinX() {
+            return 0;
+        }
+
+        @Override
+        public int getMinY() {
+            return 0;
+        }
+
+        @Override
+        public int getNumXTiles() {
+            return (width + tileSize - 1) / tileSize;
+        }
+
+        @Override
+        public int getNumYTiles() {
+            return (height + tileSize - 1) / tileSize;
+        }
+
+        @Override
+        public int getMinTileX() {
+            return 0;
+        }
+
+        @Override
+        public int getMinTileY() {
+            return 0;
+        }
+
+        @Override
+        public int getTileWidth() {
+            return tileSize;
+        }
+
+        @Override
+        public int getTileHeight() {
+            return tileSize;
+        }
+
+        @Override
+        public int getTileGridXOffset() {
+            return 0;
+        }
+
+        @Override
+        public int getTileGridYOffset() {
+            return 0;
+        }
+    }
+}
@@ -1,13 +1,67 @@
 package com.inferno.crypto.algorithm;
 
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Rail-fence transposition over bytes.
+ *
+ * The fence for a given (rails, length) is computed once as a gather
+ * permutation and its inverse and kept in a small LRU, so encryption and
+ * decryption are each a single pass of array loads. The LRU holds at most
+ * {@value #MAX_CACHED_BYTES} bytes of fences; longer fences are built per call. With a block size set, the
+ * input is transposed block by block instead: memory stays bounded and blocks
+ * may be processed in parallel, at the price of a different ciphertext.
+ *
+ * A whole-input fence cannot be streamed, since its first output row draws
+ * from the whole input, so the stream methods need a block size and then give
+ * the same ciphertext as {@link #encrypt(byte[], java.security.Key)}.
+ */
 public class TranspositionCipher extends ClassicalCipher {
 
+    private static final int CACHE_SIZE = 32;
+    private static final long MAX_CACHED_BYTES = 4L << 20;
+    private static final int MAX_CACHED_LENGTH = 1 << 16;
+
+    private static final Map<Long, Fence> FENCES = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes;
+
     private int rails;
+    private int blockSize;
+    private boolean parallel;
 
     public TranspositionCipher(int rails) {
+        if (rails < 1) {
+            throw new IllegalArgumentException("Rail fence needs at least one rail");
+        }
         this.rails = rails;
     }
 
+    /**
+     * Transpose independent blocks of {@code blockSize} bytes; 0 (the default)
+     * transposes the whole input as one fence, which the stream methods refuse.
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 0) {
+            throw new IllegalArgumentException("Block size must not be negative");
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Spread blocks over the common ForkJoin pool; only applies with a block size.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     @Override
     public boolean validateKey(String key) {
         return true;
@@ -15,24 +69,184 @@ public class TranspositionCipher extends ClassicalCipher {
 
     @Override
     public byte[] encrypt(byte[] data, java.security.Key ignored) {
-        String text = new String(data);
-        StringBuilder[] fence = new StringBuilder[rails];
-        for (int i = 0; i < rails; i++) fence[i] = new StringBuilder();
-        int row=0, dir=1;
-        for (char c : text.toCharArray()) {
-            fence[row].append(c);
-            if (row == 0) dir = 1;
-            if (row == rails-1) dir = -1;
-            row += dir;
-        }
-        StringBuilder out = new StringBuilder();
-        for (StringBuilder sb : fence) out.append(sb);
-        return out.toString().getBytes();
+        return apply(data, true);
     }
 
     @Override
     public byte[] decrypt(byte[] data, java.security.Key ignored) {
-        return encrypt(data, ignored);
+        return apply(data, false);
+    }
+
+    private byte[] apply(byte[] data, boolean encrypt) {
+        byte[] out = new byte[data.length];
+        apply(data, 0, data.length, out, 0, encrypt);
+        return out;
+    }
+
+    private void apply(byte[] src, int srcOff, int len, byte[] dst, int dstOff, boolean encrypt) {
+        if (blockSize == 0 || len <= blockSize) {
+            transpose(src, srcOff, len, dst, dstOff, encrypt);
+            return;
+        }
+        int blocks = (len + blockSize - 1) / blockSize;
+        IntStream range = IntStream.range(0, blocks);
+        (parallel ? range.parallel() : range).forEach(b -> {
+            int off = b * blockSize;
+            transpose(src, srcOff + off, Math.min(blockSize, len - off), dst, dstOff + off, encrypt);
+        });
+    }
+
+    /**
+     * A fence gathers from anywhere in its block, so it cannot overwrite its
+     * own input: distinct heap buffers are transposed directly, and the input
+     * is copied once when it is in place or off-heap.
+     */
+    @Override
+    protected void transform(ByteBuffer src, int s, ByteBuffer dst, int d, int len, boolean encrypt) {
+        byte[] in;
+        int inOff;
+        if (src.hasArray() && !(dst.hasArray() && dst.array() == src.array())) {
+            in = src.array();
+            inOff = src.arrayOffset() + s;
+        } else {
+            in = new byte[len];
+            inOff = 0;
+            src.get(s, in);
+        }
+        if (dst.hasArray()) {
+            apply(in, inOff, len, dst.array(), dst.arrayOffset() + d, encrypt);
+        } else {
+            byte[] out = new byte[len];
+            apply(in, inOff, len, out, 0, encrypt);
+            dst.put(d, out);
+        }
+    }
+
+    @Override
+    public ChunkState newChunkState(boolean encrypt) {
+        if (blockSize == 0) {
+            throw new IllegalStateException("A whole-input fence cannot be streamed; set a block size first");
+        }
+        return super.newChunkState(encrypt);
+    }
+
+    @Override
+    public int getOutputSize(ChunkState state, int len) {
+        return state.blockFill + len;
+    }
+
+    @Override
+    public int update(ChunkState state, byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        int size = blockSize;
+        if (state.block == null) {
+            state.block = new byte[size];
+        }
+        int written = 0;
+        while (len > 0) {
+            if (state.blockFill == 0 && len >= size) {
+                transpose(src, srcOff, size, dst, dstOff + written, state.encrypt);
+                srcOff += size;
+                len -= size;
+                written += size;
+                continue;
+            }
+            int n = Math.min(len, size - state.blockFill);
+            System.arraycopy(src, srcOff, state.block, state.blockFill, n);
+            state.blockFill += n;
+            srcOff += n;
+            len -= n;
+            if (state.blockFill == size) {
+                transpose(state.block, 0, size, dst, dstOff + written, state.encrypt);
+                state.blockFill = 0;
+                written += size;
+            }
+        }
+        state.position += written;
+        return written;
+    }
+
+    @Override
+    public int finish(ChunkState state, byte[] dst, int dstOff) {
+        int n = state.blockFill;
+        if (n > 0) {
+            transpose(state.block, 0, n, dst, dstOff, state.encrypt);
+            state.blockFill = 0;
+            state.position += n;
+        }
+        return n;
+    }
+
+    private void transpose(byte[] src, int srcOff, int len, byte[] dst, int dstOff, boolean encrypt) {
+        Fence fence = fence(rails, len);
+        int[] gather = encrypt ? fence.forward : fence.inverse;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = src[srcOff + gather[i]];
+        }
+    }
+
+    private static Fence fence(int rails, int length) {
+        if (length > MAX_CACHED_LENGTH) {
+            return new Fence(rails, length);
+        }
+        Long key = ((long) rails << 32) | length;
+        synchronized (FENCES) {
+            Fence fence = FENCES.get(key);
+            if (fence != null) {
+                return fence;
+            }
+        }
+        Fence fence = new Fence(rails, length);
+        synchronized (FENCES) {
+            if (FENCES.put(key, fence) == null) {
+                cachedBytes += fence.bytes();
+            }
+            Iterator<Fence> eldest = FENCES.values().iterator();
+            while (FENCES.size() > CACHE_SIZE || cachedBytes > MAX_CACHED_BYTES) {
+                cachedBytes -= eldest.next().bytes();
+                eldest.remove();
+            }
+        }
+        return fence;
+    }
+
+    /**
+     * {@code forward[j]} is the plaintext index read into ciphertext position
+     * {@code j}; {@code inverse} is the reverse mapping.
+     */
+    private static final class Fence {
+        final int[] forward;
+        final int[] inverse;
+
+        Fence(int rails, int length) {
+            forward = new int[length];
+            inverse = new int[length];
+            if (rails == 1 || length <= 1) {
+                for (int i = 0; i < length; i++) {
+                    forward[i] = i;
+                }
+            } else {
+                int cycle = 2 * (rails - 1);
+                int j = 0;
+                for (int row = 0; row < rails; row++) {
+                    for (int base = 0; base < length; base += cycle) {
+                        if (base + row < length) {
+                            forward[j++] = base + row;
+                        }
+                        int down = base + cycle - row;
+                        if (row != 0 && row != rails - 1 && down < length) {
+                            forward[j++] = down;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                inverse[forward[i]] = i;
+            }
+        }
+
+        long bytes() {
+            return 8L * forward.length;
+        }
     }
 
     @Override
@@ -49,4 +263,4 @@ public class TranspositionCipher extends ClassicalCipher {
     public int getKeySize() {
         return rails;
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,8 @@
 package com.inferno.crypto.algorithm;
 
+import com.inferno.crypto.engine.RandomService;
 import com.inferno.crypto.exception.CryptoException;
 import java.io.*;
-import java.security.SecureRandom;
 import java.util.Arrays;
 
 public class VideoCipher implements CipherAlgorithm {
@@ -24,15 +24,8 @@ public class VideoCipher implements CipherAlgorithm {
     private static final int AVI_HEADER_SIZE = 512 * 1024;  // 512KB for AVI
     private static final int DEFAULT_HEADER_SIZE = 1024 * 1024; // 1MB default
     
-    private final SecureRandom secureRandom;
-    
-    public VideoCipher() {
-        this.secureRandom = new SecureRandom();
-    }
-    
     // === CipherAlgorithm Interface ===
     
-    @Override
     public byte[] encrypt(byte[] plaintext, String key) throws CryptoException {
         try {
             byte[] keyBytes = key.getBytes("UTF-8");
@@ -43,7 +36,6 @@ public class VideoCipher implements CipherAlgorithm {
         }
     }
     
-    @Override
     public byte[] decrypt(byte[] ciphertext, String key) throws CryptoException {
         try {
             byte[] keyBytes = key.getBytes("UTF-8");
@@ -54,10 +46,8 @@ public class VideoCipher implements CipherAlgorithm {
         }
     }
     
-    @Override
     public String getName() { return "VideoCipher"; }
     
-    @Override
     public String getDescription() { 
         return "Advanced video encryption algorithm supporting multiple strategies"; 
     }
@@ -66,19 +56,31 @@ public class VideoCipher implements CipherAlgorithm {
     public int getKeySize() { return 256; }
     
     @Override
-    public boolean requiresIV() { return true; }
+    public byte[] encrypt(byte[] data, java.security.Key key) throws CryptoException {
+        return encrypt(data, new String(key.getEncoded(), java.nio.charset.StandardCharsets.UTF_8));
+    }
     
     @Override
-    public boolean isSymmetric() { return true; }
+    public byte[] decrypt(byte[] data, java.security.Key key) throws CryptoException {
+        return decrypt(data, new String(key.getEncoded(), java.nio.charset.StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public String getAlgorithmName() { return getName(); }
     
     @Override
+    public boolean supportsMode(com.inferno.crypto.mode.EncryptionMode mode) { return false; }
+    
+    public boolean requiresIV() { return true; }
+    
+    public boolean isSymmetric() { return true; }
+    
     public void validateKey(String key) throws CryptoException {
         if (key == null || key.length() < 8) {
             throw new CryptoException("Key must be at least 8 characters long");
         }
     }
     
-    @Override
     public String[] getSupportedModes() {
         return new String[]{"FULL_FILE", "SELECTIVE", "HYBRID"};
     }
@@ -367,9 +369,7 @@ public class VideoCipher implements CipherAlgorithm {
     }
     
     private byte[] generateIV() {
-        byte[] iv = new byte[16];
-        secureRandom.nextBytes(iv);
-        return iv;
+        return RandomService.bytes(16);
     }
     
     // === File Operations ===
@@ -1,10 +1,37 @@
 package com.inferno.crypto.algorithm;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/**
+ * Byte-wise Vigenere: byte {@code i} is shifted by the low byte of key
+ * character {@code i mod key length}, modulo 256. The key schedule is fixed by
+ * stream position, so a stream may be processed in chunks of any size as long
+ * as each chunk is given its starting position, or streamed through
+ * {@link #process}.
+ */
 public class VigenereCipher extends ClassicalCipher {
-    public VigenereCipher(String key) { this.key = key; }
+
+    private byte[] shifts;
+
+    public VigenereCipher(String key) {
+        this.key = key;
+        this.shifts = shifts(key);
+    }
+
+    @Override
+    public void setKey(String key) {
+        super.setKey(key);
+        this.shifts = shifts(key);
+    }
+
+    private static byte[] shifts(String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Vigenere key must not be empty");
+        }
+        byte[] shifts = new byte[key.length()];
+        for (int i = 0; i < shifts.length; i++) {
+            shifts[i] = (byte) key.charAt(i);
+        }
+        return shifts;
+    }
 
     @Override
     public boolean validateKey(String key) {
@@ -13,17 +40,44 @@ public class VigenereCipher extends ClassicalCipher {
 
     @Override
     public byte[] encrypt(byte[] data, java.security.Key ignored) {
-        String text = new String(data);
-        String res = "";
-        for (int i = 0; i < text.length(); i++) {
-            res += (char)((text.charAt(i) + key.charAt(i % key.length())) % 256);
-        }
-        return res.getBytes();
+        byte[] out = new byte[data.length];
+        encrypt(data, 0, data.length, out, 0, 0);
+        return out;
     }
 
     @Override
     public byte[] decrypt(byte[] data, java.security.Key ignored) {
-        return encrypt(data, ignored);
+        byte[] out = new byte[data.length];
+        decrypt(data, 0, data.length, out, 0, 0);
+        return out;
+    }
+
+    /**
+     * Encrypts {@code len} bytes that sit at {@code position} in the overall stream.
+     */
+    public void encrypt(byte[] src, int srcOff, int len, byte[] dst, int dstOff, long position) {
+        shift(src, srcOff, len, dst, dstOff, position, 1);
+    }
+
+    public void decrypt(byte[] src, int srcOff, int len, byte[] dst, int dstOff, long position) {
+        shift(src, srcOff, len, dst, dstOff, position, -1);
+    }
+
+    @Override
+    protected void transform(byte[] src, int srcOff, int len, byte[] dst, int dstOff,
+                             long position, boolean encrypt) {
+        shift(src, srcOff, len, dst, dstOff, position, encrypt ? 1 : -1);
+    }
+
+    private void shift(byte[] src, int srcOff, int len, byte[] dst, int dstOff, long position, int sign) {
+        byte[] k = shifts;
+        int j = (int) (position % k.length);
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] + sign * k[j]);
+            if (++j == k.length) {
+                j = 0;
+            }
+        }
     }
 
     @Override
@@ -40,4 +94,4 @@ public class VigenereCipher extends ClassicalCipher {
     public int getKeySize() {
         return key.length();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.engine.Hkdf;
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+import com.inferno.crypto.io.stream.SegmentedGcm;
+
+import javax.crypto.KeyAgreement;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.XECPublicKey;
+import java.security.spec.NamedParameterSpec;
+import java.security.spec.XECPublicKeySpec;
+import java.util.Arrays;
+
+/**
+ * ECIES-style hybrid encryption over X25519.
+ *
+ * Every message carries a fresh ephemeral X25519 public key. The shared secret
+ * with the recipient's key goes through HKDF-SHA256, salted with both public
+ * keys, to give a 256-bit AES key for the body, which is written in the
+ * {@link SegmentedGcm} format:
+ * {@code MAGIC | version | ephemeral public key (32, little-endian u)} followed by the body.
+ */
+public class X25519Cipher extends AsymmetricCipher {
+
+    private static final byte[] MAGIC = "INFX25".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int KEY_SIZE = 255;
+    private static final int PUBLIC_KEY_BYTES = 32;
+    private static final int DATA_KEY_BYTES = 32;
+    private static final byte[] INFO = "InfernoCrypt X25519 AES-256-GCM v1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<KeyPairGenerator> GENERATORS =
+            ThreadLocal.withInitial(() -> instance(() -> KeyPairGenerator.getInstance("X25519")));
+    private static final ThreadLocal<KeyAgreement> AGREEMENTS =
+            ThreadLocal.withInitial(() -> instance(() -> KeyAgreement.getInstance("X25519")));
+
+    private int segmentSize = SegmentedGcm.DEFAULT_SEGMENT_SIZE;
+
+    public void setSegmentSize(int segmentSize) {
+        SegmentedGcm.checkSegmentSize(segmentSize);
+        this.segmentSize = segmentSize;
+    }
+
+    public KeyPair generateKeyPair() throws Exception {
+        return generateKeyPair(KEY_SIZE);
+    }
+
+    @Override
+    protected KeyPair doGenerateKeyPair(int keySize) throws Exception {
+        if (keySize != KEY_SIZE) {
+            throw new IllegalArgumentException("X25519 keys are " + KEY_SIZE + " bits");
+        }
+        KeyPair pair = GENERATORS.get().generateKeyPair();
+        this.publicKey = pair.getPublic();
+        this.privateKey = pair.getPrivate();
+        return pair;
+    }
+
+    @Override
+    protected int getMinimumKeySize() {
+        return KEY_SIZE;
+    }
+
+    @Override
+    public byte[] encrypt(byte[] data, Key key) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                (int) Math.min(Integer.MAX_VALUE - 8, data.length + 128L));
+        encrypt(new ByteArrayInputStream(data), out, (PublicKey) key);
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decrypt(byte[] data, Key key) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        decrypt(new ByteArrayInputStream(data), out, (PrivateKey) key);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the number of plaintext bytes encrypted
+     */
+    public long encrypt(InputStream in, OutputStream out, PublicKey recipient) throws Exception {
+        KeyPair ephemeral = GENERATORS.get().generateKeyPair();
+        byte[] ephemeralBytes = encodePublicKey(ephemeral.getPublic());
+        SecretKeySpec dataKey = deriveKey(ephemeral.getPrivate(), recipient,
+                ephemeralBytes, encodePublicKey(recipient));
+
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(ephemeralBytes);
+        return SegmentedGcm.encrypt(in, out, dataKey, segmentSize);
+    }
+
+    /**
+     * @return the number of plaintext bytes written to {@code out}
+     */
+    public long decrypt(InputStream in, OutputStream out, PrivateKey key) throws Exception {
+        DataInputStream header = new DataInputStream(in);
+        byte[] ephemeralBytes = new byte[PUBLIC_KEY_BYTES];
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            header.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw error("Not an X25519 message", DecryptionFailureReason.FORMAT_ERROR);
+            }
+            if (header.readUnsignedByte() != VERSION) {
+                throw error("Unsupported X25519 message version", DecryptionFailureReason.VERSION_MISMATCH);
+            }
+            header.readFully(ephemeralBytes);
+        } catch (EOFException e) {
+            throw error("Truncated X25519 header", DecryptionFailureReason.SIZE_ERROR);
+        }
+
+        PublicKey ephemeral = decodePublicKey(ephemeralBytes);
+        PublicKey own = publicKey != null && privateKey == key ? publicKey : null;
+        byte[] recipientBytes = own != null ? encodePublicKey(own) : publicFromPrivate(key);
+        SecretKeySpec dataKey;
+        try {
+            dataKey = deriveKey(key, ephemeral, ephemeralBytes, recipientBytes);
+        } catch (GeneralSecurityException e) {
+            throw new DecryptionFailedException("Key agreement failed", e,
+                    "X25519", "HKDF", DecryptionFailureReason.INCORRECT_KEY);
+        }
+        return SegmentedGcm.decrypt(in, out, dataKey);
+    }
+
+    private static SecretKeySpec deriveKey(PrivateKey own, PublicKey peer, byte[] ephemeral, byte[] recipient)
+            throws GeneralSecurityException {
+        KeyAgreement agreement = AGREEMENTS.get();
+        agreement.init(own);
+        agreement.doPhase(peer, true);
+        byte[] shared = agreement.generateSecret();
+
+        byte[] salt = new byte[ephemeral.length + recipient.length];
+        System.arraycopy(ephemeral, 0, salt, 0, ephemeral.length);
+        System.arraycopy(recipient, 0, salt, ephemeral.length, recipient.length);
+        byte[] raw = Hkdf.derive(salt, shared, INFO, DATA_KEY_BYTES);
+        Arrays.fill(shared, (byte) 0);
+        try {
+            return new SecretKeySpec(raw, "AES");
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    /**
+     * The recipient's public key is part of the HKDF salt; when only the private
+     * key is at hand it is recomputed as the scalar times the base point.
+     */
+    private static byte[] publicFromPrivate(PrivateKey key) throws GeneralSecurityException {
+        KeyAgreement agreement = AGREEMENTS.get();
+        agreement.init(key);
+        byte[] basePoint = new byte[PUBLIC_KEY_BYTES];
+        basePoint[0] = 9;
+        agreement.doPhase(decodePublicKey(basePoint), true);
+        return agreement.generateSecret();
+    }
+
+    static byte[] encodePublicKey(PublicKey key) {
+        BigInteger u = ((XECPublicKey) key).getU();
+        byte[] bigEndian = u.toByteArray();
+        byte[] encoded = new byte[PUBLIC_KEY_BYTES];
+        for (int i = 0; i < PUBLIC_KEY_BYTES && i < bigEndian.length; i++) {
+            encoded[i] = bigEndian[bigEndian.length - 1 - i];
+        }
+        return encoded;
+    }
+
+    static PublicKey decodePublicKey(byte[] encoded) throws GeneralSecurityException {
+        byte[] bigEndian = new byte[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            bigEndian[i] = encoded[encoded.length - 1 - i];
+        }
+        // RFC 7748: the most significant bit of the final byte is ignored.
+        bigEndian[0] &= 0x7f;
+        return KeyFactory.getInstance("X25519").generatePublic(
+                new XECPublicKeySpec(NamedParameterSpec.X25519, new BigInteger(1, bigEndian)));
+    }
+
+    private static DecryptionFailedException error(String message, DecryptionFailureReason reason) {
+        return new DecryptionFailedException(message, "X25519", "HKDF", reason);
+    }
+
+    private interface Factory<T> {
+        T create() throws NoSuchAlgorithmException;
+    }
+
+    private static <T> T instance(Factory<T> factory) {
+        try {
+            return factory.create();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("X25519 not available", e);
+        }
+    }
+
+    @Override
+    public boolean supportsMode(com.inferno.crypto.mode.EncryptionMode mode) {
+        return false;
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "X25519";
+    }
+
+    @Override
+    public int getKeySize() {
+        return KEY_SIZE;
+    }
+}
@@ -1,12 +1,50 @@
 package com.inferno.crypto.algorithm;
 
+import javax.crypto.ShortBufferException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Random;
 
+/**
+ * Repeating-key XOR, eight bytes at a time.
+ *
+ * The key is expanded to {@code lcm(keyLength, 8)} bytes so that every aligned
+ * 8-byte step of the input meets a whole precomputed key word; arrays and
+ * buffers are read and written through {@code long} VarHandle views, with byte
+ * loops only for the unaligned head and the tail.
+ */
 public class XORCipher extends ClassicalCipher {
 
+    private static final VarHandle ARRAY_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     private byte[] xorKey;
+    private final byte[] pattern;
+    private final long[] words;
+
+    public XORCipher(byte[] key) {
+        if (key == null || key.length == 0) {
+            throw new IllegalArgumentException("XOR key must not be empty");
+        }
+        this.xorKey = key;
+        int length = key.length / gcd(key.length, Long.BYTES) * Long.BYTES;
+        this.pattern = new byte[length];
+        for (int i = 0; i < length; i++) {
+            pattern[i] = key[i % key.length];
+        }
+        this.words = new long[length / Long.BYTES];
+        for (int w = 0; w < words.length; w++) {
+            words[w] = (long) ARRAY_LONGS.get(pattern, w * Long.BYTES);
+        }
+    }
 
-    public XORCipher(byte[] key) { this.xorKey = key; }
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
 
     @Override
     public boolean validateKey(String key) { return false; }
@@ -20,8 +58,7 @@ public class XORCipher extends ClassicalCipher {
     @Override
     public byte[] encrypt(byte[] data, java.security.Key ignored) {
         byte[] out = new byte[data.length];
-        for (int i = 0; i < data.length; i++)
-            out[i] = (byte)(data[i] ^ xorKey[i % xorKey.length]);
+        xor(data, 0, data.length, out, 0, 0);
         return out;
     }
 
@@ -30,6 +67,87 @@ public class XORCipher extends ClassicalCipher {
         return encrypt(data, ignored);
     }
 
+    /**
+     * XORs {@code len} bytes that sit at {@code position} in the overall stream;
+     * {@code src} and {@code dst} may be the same array.
+     */
+    public void xor(byte[] src, int srcOff, int len, byte[] dst, int dstOff, long position) {
+        int j = (int) (position % pattern.length);
+        int i = 0;
+        for (; i < len && (j & 7) != 0; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] ^ pattern[j]);
+            j = j + 1 == pattern.length ? 0 : j + 1;
+        }
+        int w = j >>> 3;
+        for (; len - i >= Long.BYTES; i += Long.BYTES) {
+            long v = (long) ARRAY_LONGS.get(src, srcOff + i);
+            ARRAY_LONGS.set(dst, dstOff + i, v ^ words[w]);
+            if (++w == words.length) {
+                w = 0;
+            }
+        }
+        j = w << 3;
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] ^ pattern[j++]);
+        }
+    }
+
+    @Override
+    protected void transform(byte[] src, int srcOff, int len, byte[] dst, int dstOff,
+                             long position, boolean encrypt) {
+        xor(src, srcOff, len, dst, dstOff, position);
+    }
+
+    private void xor(ByteBuffer src, int s, ByteBuffer dst, int d, int len) {
+        if (src.hasArray() && dst.hasArray()) {
+            xor(src.array(), src.arrayOffset() + s, len, dst.array(), dst.arrayOffset() + d, 0);
+            return;
+        }
+        int i = 0;
+        int w = 0;
+        for (; len - i >= Long.BYTES; i += Long.BYTES) {
+            long v = (long) BUFFER_LONGS.get(src, s + i);
+            BUFFER_LONGS.set(dst, d + i, v ^ words[w]);
+            if (++w == words.length) {
+                w = 0;
+            }
+        }
+        for (int j = w << 3; i < len; i++) {
+            dst.put(d + i, (byte) (src.get(s + i) ^ pattern[j++]));
+        }
+    }
+
+    @Override
+    public int encrypt(ByteBuffer src, ByteBuffer dst, java.security.Key ignored) throws ShortBufferException {
+        int n = src.remaining();
+        if (dst.remaining() < n) {
+            throw new ShortBufferException("Need " + n + " bytes, have " + dst.remaining());
+        }
+        int s = src.position();
+        int d = dst.position();
+        xor(src, s, dst, d, n);
+        src.position(s + n);
+        dst.position(d + n);
+        return n;
+    }
+
+    @Override
+    public int decrypt(ByteBuffer src, ByteBuffer dst, java.security.Key ignored) throws ShortBufferException {
+        return encrypt(src, dst, ignored);
+    }
+
+    @Override
+    public int encryptInPlace(ByteBuffer buffer, java.security.Key ignored) {
+        int n = buffer.remaining();
+        xor(buffer, buffer.position(), buffer, buffer.position(), n);
+        return n;
+    }
+
+    @Override
+    public int decryptInPlace(ByteBuffer buffer, java.security.Key ignored) {
+        return encryptInPlace(buffer, ignored);
+    }
+
     @Override
     public boolean supportsMode(com.inferno.crypto.mode.EncryptionMode mode) {
         return false;
@@ -44,4 +162,4 @@ public class XORCipher extends ClassicalCipher {
     public int getKeySize() {
         return xorKey.length;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,603 @@
+package com.inferno.crypto.engine;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherSpi;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.AlgorithmParameters;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pure-Java Blowfish with a configurable number of rounds.
+ *
+ * With the default 16 rounds the output is identical to the JCE "Blowfish"
+ * cipher. Key setup costs 521 block encryptions, so expanded schedules are kept
+ * in a bounded LRU keyed by a SHA-256 fingerprint of the key and the round
+ * count; an engine is immutable once built and may be shared between threads.
+ *
+ * The initial P-array and S-boxes are the hexadecimal digits of pi. Rounds
+ * beyond 16 take their extra subkeys from the digits that follow the S-boxes.
+ */
+public final class BlowfishEngine {
+
+    public static final int BLOCK_SIZE = 8;
+    public static final int DEFAULT_ROUNDS = 16;
+    public static final int MAX_ROUNDS = 64;
+
+    private static final int MIN_KEY_BYTES = 4;
+    private static final int MAX_KEY_BYTES = 56;
+    private static final int CACHE_SIZE = 64;
+
+    private static final VarHandle BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final Map<Fingerprint, BlowfishEngine> CACHE =
+            new LinkedHashMap<Fingerprint, BlowfishEngine>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Fingerprint, BlowfishEngine> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    private final int rounds;
+    private final int[] p;
+    private final int[] s0 = new int[256];
+    private final int[] s1 = new int[256];
+    private final int[] s2 = new int[256];
+    private final int[] s3 = new int[256];
+
+    private BlowfishEngine(byte[] key, int rounds) {
+        this.rounds = rounds;
+        this.p = new int[rounds + 2];
+
+        int[] pi = Pi.WORDS;
+        for (int i = 0; i < p.length; i++) {
+            p[i] = i < 18 ? pi[i] : pi[18 + 1024 + i - 18];
+        }
+        System.arraycopy(pi, 18, s0, 0, 256);
+        System.arraycopy(pi, 18 + 256, s1, 0, 256);
+        System.arraycopy(pi, 18 + 512, s2, 0, 256);
+        System.arraycopy(pi, 18 + 768, s3, 0, 256);
+
+        for (int i = 0, j = 0; i < p.length; i++) {
+            int data = 0;
+            for (int k = 0; k < 4; k++) {
+                data = (data << 8) | (key[j] & 0xff);
+                j = (j + 1) % key.length;
+            }
+            p[i] ^= data;
+        }
+
+        long block = 0;
+        for (int[] table : new int[][] {p, s0, s1, s2, s3}) {
+            for (int i = 0; i < table.length; i += 2) {
+                block = encryptBlock(block);
+                table[i] = (int) (block >>> 32);
+                table[i + 1] = (int) block;
+            }
+        }
+    }
+
+    /**
+     * The expanded schedule for {@code key}, taken from the cache when possible.
+     */
+    public static BlowfishEngine forKey(byte[] key, int rounds) throws InvalidKeyException {
+        checkRounds(rounds);
+        if (key == null || key.length < MIN_KEY_BYTES || key.length > MAX_KEY_BYTES) {
+            throw new InvalidKeyException("Blowfish keys must be between 32 and 448 bits");
+        }
+        Fingerprint fingerprint = new Fingerprint(sha256(key), rounds);
+        synchronized (CACHE) {
+            BlowfishEngine engine = CACHE.get(fingerprint);
+            if (engine != null) {
+                return engine;
+            }
+        }
+        BlowfishEngine engine = new BlowfishEngine(key, rounds);
+        synchronized (CACHE) {
+            CACHE.put(fingerprint, engine);
+        }
+        return engine;
+    }
+
+    public static void checkRounds(int rounds) {
+        if (rounds < 2 || rounds > MAX_ROUNDS || rounds % 2 != 0) {
+            throw new IllegalArgumentException(
+                    "Rounds must be an even number between 2 and " + MAX_ROUNDS + ": " + rounds);
+        }
+    }
+
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    // === Block primitive ===
+
+    private int f(int x) {
+        return ((s0[x >>> 24] + s1[(x >>> 16) & 0xff]) ^ s2[(x >>> 8) & 0xff]) + s3[x & 0xff];
+    }
+
+    public long encryptBlock(long block) {
+        int l = (int) (block >>> 32);
+        int r = (int) block;
+        for (int i = 0; i < rounds; i += 2) {
+            l ^= p[i];
+            r ^= f(l);
+            r ^= p[i + 1];
+            l ^= f(r);
+        }
+        l ^= p[rounds];
+        r ^= p[rounds + 1];
+        return ((long) r << 32) | (l & 0xffffffffL);
+    }
+
+    public long decryptBlock(long block) {
+        int l = (int) (block >>> 32);
+        int r = (int) block;
+        for (int i = rounds + 1; i > 1; i -= 2) {
+            l ^= p[i];
+            r ^= f(l);
+            r ^= p[i - 1];
+            l ^= f(r);
+        }
+        l ^= p[1];
+        r ^= p[0];
+        return ((long) r << 32) | (l & 0xffffffffL);
+    }
+
+    // === ECB with PKCS#5 padding, as the JCE "Blowfish" transformation ===
+
+    public byte[] encryptEcb(byte[] data) {
+        int pad = BLOCK_SIZE - data.length % BLOCK_SIZE;
+        byte[] out = Arrays.copyOf(data, data.length + pad);
+        Arrays.fill(out, data.length, out.length, (byte) pad);
+        for (int i = 0; i < out.length; i += BLOCK_SIZE) {
+            putLong(out, i, encryptBlock(getLong(out, i)));
+        }
+        return out;
+    }
+
+    public byte[] decryptEcb(byte[] data) throws BadPaddingException {
+        if (data.length == 0 || data.length % BLOCK_SIZE != 0) {
+            throw new BadPaddingException("Ciphertext is not a whole number of blocks");
+        }
+        byte[] out = new byte[data.length];
+        for (int i = 0; i < data.length; i += BLOCK_SIZE) {
+            putLong(out, i, decryptBlock(getLong(data, i)));
+        }
+        int pad = out[out.length - 1] & 0xff;
+        if (pad < 1 || pad > BLOCK_SIZE) {
+            throw new BadPaddingException("Invalid padding");
+        }
+        for (int i = out.length - pad; i < out.length; i++) {
+            if ((out[i] & 0xff) != pad) {
+                throw new BadPaddingException("Invalid padding");
+            }
+        }
+        return Arrays.copyOf(out, out.length - pad);
+    }
+
+    /**
+     * Buffer form of {@link #encryptEcb(byte[])}: encrypts the remaining bytes
+     * of {@code src} into {@code dst} and advances both. The two may be the
+     * same buffer at the same index.
+     */
+    public int encryptEcb(ByteBuffer src, ByteBuffer dst) throws ShortBufferException {
+        int len = src.remaining();
+        int full = len - len % BLOCK_SIZE;
+        int outLen = full + BLOCK_SIZE;
+        if (dst.remaining() < outLen) {
+            throw new ShortBufferException("Need " + outLen + " bytes, have " + dst.remaining());
+        }
+        int s = src.position();
+        int d = dst.position();
+        for (int i = 0; i < full; i += BLOCK_SIZE) {
+            BUFFER_LONGS.set(dst, d + i, encryptBlock((long) BUFFER_LONGS.get(src, s + i)));
+        }
+        int pad = outLen - len;
+        long last = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            last = (last << 8) | (i < BLOCK_SIZE - pad ? src.get(s + full + i) & 0xff : pad);
+        }
+        BUFFER_LONGS.set(dst, d + full, encryptBlock(last));
+        src.position(s + len);
+        dst.position(d + outLen);
+        return outLen;
+    }
+
+    /**
+     * Buffer form of {@link #decryptEcb(byte[])}. The padding is checked
+     * before anything is written, so on failure neither buffer has moved.
+     */
+    public int decryptEcb(ByteBuffer src, ByteBuffer dst) throws BadPaddingException, ShortBufferException {
+        int len = src.remaining();
+        if (len == 0 || len % BLOCK_SIZE != 0) {
+            throw new BadPaddingException("Ciphertext is not a whole number of blocks");
+        }
+        int s = src.position();
+        int d = dst.position();
+        int full = len - BLOCK_SIZE;
+        long last = decryptBlock((long) BUFFER_LONGS.get(src, s + full));
+        int pad = (int) last & 0xff;
+        if (pad < 1 || pad > BLOCK_SIZE) {
+            throw new BadPaddingException("Invalid padding");
+        }
+        for (int i = 0; i < pad; i++) {
+            if ((int) (last >>> (8 * i) & 0xff) != pad) {
+                throw new BadPaddingException("Invalid padding");
+            }
+        }
+        int outLen = len - pad;
+        if (dst.remaining() < outLen) {
+            throw new ShortBufferException("Need " + outLen + " bytes, have " + dst.remaining());
+        }
+        for (int i = 0; i < full; i += BLOCK_SIZE) {
+            BUFFER_LONGS.set(dst, d + i, decryptBlock((long) BUFFER_LONGS.get(src, s + i)));
+        }
+        for (int i = 0; i < BLOCK_SIZE - pad; i++) {
+            dst.put(d + full + i, (byte) (last >>> (56 - 8 * i)));
+        }
+        src.position(s + len);
+        dst.position(d + outLen);
+        return outLen;
+    }
+
+    // === CTR ===
+
+    /**
+     * A counter-mode keystream starting at the 8-byte counter block {@code iv}.
+     * The counter is incremented as a big-endian 64-bit integer, as the JCE
+     * "Blowfish/CTR/NoPadding" transformation does.
+     */
+    public Ctr ctr(byte[] iv) {
+        if (iv.length != BLOCK_SIZE) {
+            throw new IllegalArgumentException("CTR needs an IV of " + BLOCK_SIZE + " bytes");
+        }
+        return new Ctr(this, getLong(iv, 0));
+    }
+
+    /**
+     * Incremental CTR state; encryption and decryption are the same operation.
+     * Not thread-safe.
+     */
+    public static final class Ctr {
+        private final BlowfishEngine engine;
+        private long counter;
+        private long keystream;
+        private int used = BLOCK_SIZE;
+
+        private Ctr(BlowfishEngine engine, long counter) {
+            this.engine = engine;
+            this.counter = counter;
+        }
+
+        public void update(byte[] in, int inOff, int len, byte[] out, int outOff) {
+            int i = 0;
+            while (i < len && used < BLOCK_SIZE) {
+                out[outOff + i] = (byte) (in[inOff + i] ^ (keystream >>> (56 - 8 * used++)));
+                i++;
+            }
+            for (; len - i >= BLOCK_SIZE; i += BLOCK_SIZE) {
+                putLong(out, outOff + i, getLong(in, inOff + i) ^ engine.encryptBlock(counter++));
+            }
+            while (i < len) {
+                if (used == BLOCK_SIZE) {
+                    keystream = engine.encryptBlock(counter++);
+                    used = 0;
+                }
+                out[outOff + i] = (byte) (in[inOff + i] ^ (keystream >>> (56 - 8 * used++)));
+                i++;
+            }
+        }
+
+        public byte[] update(byte[] in) {
+            byte[] out = new byte[in.length];
+            update(in, 0, in.length, out, 0);
+            return out;
+        }
+
+        /**
+         * Buffer form of {@link #update(byte[], int, int, byte[], int)}; advances
+         * both buffers, which may be the same buffer at the same index.
+         */
+        public int update(ByteBuffer src, ByteBuffer dst) throws ShortBufferException {
+            int len = src.remaining();
+            if (dst.remaining() < len) {
+                throw new ShortBufferException("Need " + len + " bytes, have " + dst.remaining());
+            }
+            int s = src.position();
+            int d = dst.position();
+            int i = 0;
+            while (i < len && used < BLOCK_SIZE) {
+                dst.put(d + i, (byte) (src.get(s + i) ^ (keystream >>> (56 - 8 * used++))));
+                i++;
+            }
+            for (; len - i >= BLOCK_SIZE; i += BLOCK_SIZE) {
+                BUFFER_LONGS.set(dst, d + i, (long) BUFFER_LONGS.get(src, s + i) ^ engine.encryptBlock(counter++));
+            }
+            while (i < len) {
+                if (used == BLOCK_SIZE) {
+                    keystream = engine.encryptBlock(counter++);
+                    used = 0;
+                }
+                dst.put(d + i, (byte) (src.get(s + i) ^ (keystream >>> (56 - 8 * used++))));
+                i++;
+            }
+            src.position(s + len);
+            dst.position(d + len);
+            return len;
+        }
+    }
+
+    /**
+     * An uninitialised {@code "Blowfish/CTR/NoPadding"} {@link Cipher} running
+     * on this engine with any round count, for callers that stream through the
+     * JCE API. It takes a raw-encoded key and an 8-byte {@link IvParameterSpec};
+     * with 16 rounds its output matches the JCE cipher.
+     */
+    public static Cipher ctrCipher(int rounds) {
+        checkRounds(rounds);
+        return new Cipher(new CtrSpi(rounds), PROVIDER, "Blowfish/CTR/NoPadding") {};
+    }
+
+    private static final Provider PROVIDER = new CtrProvider();
+
+    /**
+     * Named on the ciphers from {@link #ctrCipher}; it is never registered
+     * with {@link java.security.Security}.
+     */
+    private static final class CtrProvider extends Provider {
+        private static final long serialVersionUID = 1L;
+
+        CtrProvider() {
+            super("InfernoCrypt", "1.0", "Blowfish CTR with a configurable round count");
+        }
+    }
+
+    private static final class CtrSpi extends CipherSpi {
+        private final int rounds;
+        private BlowfishEngine engine;
+        private byte[] iv;
+        private Ctr ctr;
+
+        CtrSpi(int rounds) {
+            this.rounds = rounds;
+        }
+
+        @Override
+        protected void engineSetMode(String mode) throws NoSuchAlgorithmException {
+            if (!"CTR".equalsIgnoreCase(mode)) {
+                throw new NoSuchAlgorithmException("Only CTR is supported: " + mode);
+            }
+        }
+
+        @Override
+        protected void engineSetPadding(String padding) throws NoSuchPaddingException {
+            if (!"NoPadding".equalsIgnoreCase(padding)) {
+                throw new NoSuchPaddingException("CTR takes no padding: " + padding);
+            }
+        }
+
+        @Override
+        protected int engineGetBlockSize() {
+            return BLOCK_SIZE;
+        }
+
+        @Override
+        protected int engineGetOutputSize(int inputLen) {
+            return inputLen;
+        }
+
+        @Override
+        protected byte[] engineGetIV() {
+            return iv == null ? null : iv.clone();
+        }
+
+        @Override
+        protected AlgorithmParameters engineGetParameters() {
+            return null;
+        }
+
+        @Override
+        protected void engineInit(int opmode, Key key, SecureRandom random) throws InvalidKeyException {
+            throw new InvalidKeyException("Blowfish CTR needs an IV");
+        }
+
+        @Override
+        protected void engineInit(int opmode, Key key, AlgorithmParameterSpec params, SecureRandom random)
+                throws InvalidKeyException, InvalidAlgorithmParameterException {
+            if (!(params instanceof IvParameterSpec) || ((IvParameterSpec) params).getIV().length != BLOCK_SIZE) {
+                throw new InvalidAlgorithmParameterException("Blowfish CTR needs an IV of " + BLOCK_SIZE + " bytes");
+            }
+            engine = forKey(key.getEncoded(), rounds);
+            iv = ((IvParameterSpec) params).getIV();
+            ctr = engine.ctr(iv);
+        }
+
+        @Override
+        protected void engineInit(int opmode, Key key, AlgorithmParameters params, SecureRandom random)
+                throws InvalidKeyException, InvalidAlgorithmParameterException {
+            if (params == null) {
+                engineInit(opmode, key, random);
+                return;
+            }
+            try {
+                engineInit(opmode, key, params.getParameterSpec(IvParameterSpec.class), random);
+            } catch (InvalidParameterSpecException e) {
+                throw new InvalidAlgorithmParameterException("Blowfish CTR needs an IV", e);
+            }
+        }
+
+        @Override
+        protected byte[] engineUpdate(byte[] input, int inputOffset, int inputLen) {
+            byte[] out = new byte[inputLen];
+            ctr.update(input, inputOffset, inputLen, out, 0);
+            return out;
+        }
+
+        @Override
+        protected int engineUpdate(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+                throws ShortBufferException {
+            if (output.length - outputOffset < inputLen) {
+                throw new ShortBufferException("Need " + inputLen + " bytes");
+            }
+            ctr.update(input, inputOffset, inputLen, output, outputOffset);
+            return inputLen;
+        }
+
+        @Override
+        protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen) {
+            byte[] out = engineUpdate(input, inputOffset, inputLen);
+            ctr = engine.ctr(iv);
+            return out;
+        }
+
+        @Override
+        protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+                throws ShortBufferException {
+            int n = engineUpdate(input, inputOffset, inputLen, output, outputOffset);
+            ctr = engine.ctr(iv);
+            return n;
+        }
+    }
+
+    // === Helpers ===
+
+    private static long getLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xff);
+        }
+        return v;
+    }
+
+    private static void putLong(byte[] b, int off, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[off + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    private static byte[] sha256(byte[] key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Fingerprint {
+        private final byte[] digest;
+        private final int rounds;
+
+        Fingerprint(byte[] digest, int rounds) {
+            this.digest = digest;
+            this.rounds = rounds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint other = (Fingerprint) o;
+            return rounds == other.rounds && MessageDigest.isEqual(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(digest) + rounds;
+        }
+    }
+
+    /**
+     * The fractional hex digits of pi as 32-bit words, computed once with
+     * Machin's formula, pi = 16 atan(1/5) - 4 atan(1/239), in fixed point:
+     * word 0 holds the integer part, the last two words are guard digits.
+     */
+    private static final class Pi {
+        static final int[] WORDS = words(18 + 1024 + MAX_ROUNDS - DEFAULT_ROUNDS);
+
+        private static int[] words(int count) {
+            int[] pi = new int[1 + count + 2];
+            addArctan(pi, 16, 5, false);
+            addArctan(pi, 4, 239, true);
+            return Arrays.copyOfRange(pi, 1, 1 + count);
+        }
+
+        private static void addArctan(int[] acc, int coefficient, int x, boolean negate) {
+            int[] power = new int[acc.length];
+            int[] term = new int[acc.length];
+            power[0] = coefficient;
+            divide(power, x, 0);
+            int start = 0;
+            for (int n = 1; ; n += 2) {
+                while (start < power.length && power[start] == 0) {
+                    start++;
+                }
+                if (start == power.length) {
+                    return;
+                }
+                Arrays.fill(term, 0, start, 0);
+                System.arraycopy(power, start, term, start, power.length - start);
+                divide(term, n, start);
+                if (negate ^ (n & 2) != 0) {
+                    subtract(acc, term);
+                } else {
+                    add(acc, term);
+                }
+                divide(power, x * x, start);
+            }
+        }
+
+        private static void divide(int[] a, int divisor, int from) {
+            long remainder = 0;
+            for (int i = from; i < a.length; i++) {
+                long current = (remainder << 32) | (a[i] & 0xffffffffL);
+                a[i] = (int) (current / divisor);
+                remainder = current % divisor;
+            }
+        }
+
+        private static void add(int[] acc, int[] b) {
+            long carry = 0;
+            for (int i = acc.length - 1; i >= 0; i--) {
+                long sum = (acc[i] & 0xffffffffL) + (b[i] & 0xffffffffL) + carry;
+                acc[i] = (int) sum;
+                carry = sum >>> 32;
+            }
+        }
+
+        private static void subtract(int[] acc, int[] b) {
+            long borrow = 0;
+            for (int i = acc.length - 1; i >= 0; i--) {
+                long diff = (acc[i] & 0xffffffffL) - (b[i] & 0xffffffffL) - borrow;
+                acc[i] = (int) diff;
+                borrow = diff < 0 ? 1 : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.inferno.crypto.engine;
+
+/**
+ * A bijective byte-to-byte mapping and its inverse, each a 256-entry table, so
+ * mapping a buffer costs one array load per byte.
+ */
+public final class ByteTable {
+
+    private final byte[] forward;
+    private final byte[] inverse;
+
+    /**
+     * @throws IllegalArgumentException unless {@code forward} is a permutation of all 256 byte values
+     */
+    public ByteTable(byte[] forward) {
+        if (forward.length != 256) {
+            throw new IllegalArgumentException("Byte table needs 256 entries");
+        }
+        byte[] inverse = new byte[256];
+        boolean[] seen = new boolean[256];
+        for (int i = 0; i < 256; i++) {
+            int v = forward[i] & 0xff;
+            if (seen[v]) {
+                throw new IllegalArgumentException("Byte table is not a bijection: " + v + " appears twice");
+            }
+            seen[v] = true;
+            inverse[v] = (byte) i;
+        }
+        this.forward = forward.clone();
+        this.inverse = inverse;
+    }
+
+    public static byte[] identity() {
+        byte[] table = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (byte) i;
+        }
+        return table;
+    }
+
+    public byte[] encrypt(byte[] data) {
+        byte[] out = new byte[data.length];
+        map(forward, data, 0, data.length, out, 0);
+        return out;
+    }
+
+    public byte[] decrypt(byte[] data) {
+        byte[] out = new byte[data.length];
+        map(inverse, data, 0, data.length, out, 0);
+        return out;
+    }
+
+    public void encrypt(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        map(forward, src, srcOff, len, dst, dstOff);
+    }
+
+    public void decrypt(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        map(inverse, src, srcOff, len, dst, dstOff);
+    }
+
+    private static void map(byte[] table, byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = table[src[srcOff + i] & 0xff];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.inferno.crypto.engine;
+
+import javax.crypto.Cipher;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-thread cache of {@link Cipher} instances keyed by transformation.
+ * The provider lookup in {@link Cipher#getInstance(String)} happens once per
+ * thread and transformation; afterwards each call only re-initialises the
+ * cached engine with the caller's key and IV.
+ */
+public final class CipherEngine {
+
+    private static final ThreadLocal<Map<String, Cipher>> ENGINES =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<Map<String, Keyed>> KEYED =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private CipherEngine() {}
+
+    public static Cipher get(String transformation) throws GeneralSecurityException {
+        Map<String, Cipher> engines = ENGINES.get();
+        Cipher cipher = engines.get(transformation);
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation);
+            engines.put(transformation, cipher);
+        }
+        return cipher;
+    }
+
+    public static Cipher init(String transformation, int opmode, Key key, AlgorithmParameterSpec params)
+            throws GeneralSecurityException {
+        Cipher cipher = get(transformation);
+        try {
+            if (params == null) {
+                cipher.init(opmode, key);
+            } else {
+                cipher.init(opmode, key, params);
+            }
+        } catch (GeneralSecurityException e) {
+            // A cached GCM engine refuses to encrypt twice with the same key/IV pair.
+            // Callers that deliberately do so get a throwaway engine, as before.
+            cipher = Cipher.getInstance(transformation);
+            if (params == null) {
+                cipher.init(opmode, key);
+            } else {
+                cipher.init(opmode, key, params);
+            }
+        }
+        return cipher;
+    }
+
+    /**
+     * Runs {@code operation} on a per-thread engine initialised once per
+     * transformation, mode and key. Only for IV-less ciphers that reset
+     * themselves after every {@code doFinal}/{@code wrap}, such as RSA, where
+     * re-initialising for each message would repeat the key parsing and
+     * padding setup.
+     *
+     * If {@code operation} throws, the engine may be left holding buffered
+     * input, so its slot is dropped and the next call starts from a fresh one.
+     *
+     * The engine and the last key used in each slot stay strongly reachable
+     * from the calling thread until that slot is re-keyed or {@link #clear()}
+     * is called. Threads that handle private keys and outlive the work, such
+     * as pooled threads, should call {@link #clear()} when done.
+     */
+    public static <T> T withKeyed(String transformation, int opmode, Key key, KeyedOperation<T> operation)
+            throws GeneralSecurityException {
+        Map<String, Keyed> engines = KEYED.get();
+        String slot = transformation + '#' + opmode;
+        Keyed keyed = engines.get(slot);
+        if (keyed == null || (keyed.key != key && !keyed.key.equals(key))) {
+            Cipher cipher = keyed == null ? Cipher.getInstance(transformation) : keyed.cipher;
+            engines.remove(slot);
+            cipher.init(opmode, key);
+            keyed = new Keyed(key, cipher);
+            engines.put(slot, keyed);
+        }
+        try {
+            return operation.apply(keyed.cipher);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            engines.remove(slot);
+            throw e;
+        }
+    }
+
+    /**
+     * Work done on a keyed engine by {@link #withKeyed}.
+     */
+    @FunctionalInterface
+    public interface KeyedOperation<T> {
+        T apply(Cipher cipher) throws GeneralSecurityException;
+    }
+
+    private static final class Keyed {
+        final Key key;
+        final Cipher cipher;
+
+        Keyed(Key key, Cipher cipher) {
+            this.key = key;
+            this.cipher = cipher;
+        }
+    }
+
+    /**
+     * Runs {@code buffer}'s remaining bytes through {@code cipher}, writing the
+     * result over them; see {@code CipherAlgorithm#encryptInPlace}.
+     */
+    public static int doFinalInPlace(Cipher cipher, ByteBuffer buffer) throws GeneralSecurityException {
+        ByteBuffer src = buffer.duplicate();
+        ByteBuffer dst = buffer.duplicate();
+        dst.limit(dst.capacity());
+        int n = cipher.doFinal(src, dst);
+        buffer.limit(buffer.position() + n);
+        return n;
+    }
+
+    public static void clear() {
+        ENGINES.remove();
+        KEYED.remove();
+    }
+}
@@ -0,0 +1,89 @@
+package com.inferno.crypto.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic 96-bit GCM nonces for a single key: a 32-bit fixed field
+ * followed by a 64-bit invocation counter (SP 800-38D, 8.2.1).
+ *
+ * Nonces from one generator never repeat, and the generator fails hard once
+ * {@code limit} nonces (at most 2^32 - 1) have been handed out; the key must
+ * then be rotated. The counter lives only as long as the generator, so this
+ * is safe only for keys that never outlive it, such as keys created for one
+ * process or session. The fixed field must differ between generators that use
+ * the same key at the same time, for example one per device or instance.
+ * Long-lived keys should use random nonces from {@link RandomService} instead.
+ */
+public final class CounterNonceGenerator {
+
+    public static final int NONCE_SIZE = 12;
+    public static final long MAX_LIMIT = (1L << 32) - 1;
+
+    private final int fixed;
+    private final long limit;
+    private final AtomicLong counter = new AtomicLong();
+
+    public CounterNonceGenerator() {
+        this(0, MAX_LIMIT);
+    }
+
+    public CounterNonceGenerator(int fixed, long limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and 2^32 - 1");
+        }
+        this.fixed = fixed;
+        this.limit = limit;
+    }
+
+    public byte[] next() {
+        byte[] nonce = new byte[NONCE_SIZE];
+        write(reserve(1), nonce, 0);
+        return nonce;
+    }
+
+    /**
+     * Writes {@code count} consecutive nonces into {@code dst} starting at
+     * {@code offset}, reserving them with a single atomic step.
+     */
+    public void next(byte[] dst, int offset, int count) {
+        long first = reserve(count);
+        for (int i = 0; i < count; i++) {
+            write(first + i, dst, offset + i * NONCE_SIZE);
+        }
+    }
+
+    private long reserve(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative");
+        }
+        long first;
+        do {
+            first = counter.get();
+            if (first > limit - count) {
+                throw new IllegalStateException("Nonce space exhausted for this key; rotate the key");
+            }
+        } while (!counter.compareAndSet(first, first + count));
+        return first;
+    }
+
+    private void write(long value, byte[] dst, int offset) {
+        for (int i = 0; i < 4; i++) {
+            dst[offset + i] = (byte) (fixed >>> (24 - 8 * i));
+        }
+        for (int i = 0; i < 8; i++) {
+            dst[offset + 4 + i] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+
+    public long used() {
+        return counter.get();
+    }
+
+    public long remaining() {
+        return limit - used();
+    }
+
+    public boolean isExhausted() {
+        return remaining() == 0;
+    }
+}
@@ -0,0 +1,65 @@
+package com.inferno.crypto.engine;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * HKDF with HMAC-SHA256 (RFC 5869). The JDK does not ship a KDF API before
+ * Java 24, so the two steps are built on {@link Mac} directly.
+ */
+public final class Hkdf {
+
+    public static final int HASH_LENGTH = 32;
+    private static final String HMAC = "HmacSHA256";
+
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HMAC + " not available", e);
+        }
+    });
+
+    private Hkdf() {}
+
+    public static byte[] extract(byte[] salt, byte[] ikm) throws GeneralSecurityException {
+        Mac mac = MACS.get();
+        mac.init(new SecretKeySpec(salt == null || salt.length == 0 ? new byte[HASH_LENGTH] : salt, HMAC));
+        return mac.doFinal(ikm);
+    }
+
+    public static byte[] expand(byte[] prk, byte[] info, int length) throws GeneralSecurityException {
+        if (length < 1 || length > 255 * HASH_LENGTH) {
+            throw new IllegalArgumentException("HKDF output length out of range: " + length);
+        }
+        Mac mac = MACS.get();
+        mac.init(new SecretKeySpec(prk, HMAC));
+        byte[] okm = new byte[length];
+        byte[] block = new byte[0];
+        for (int i = 1, off = 0; off < length; i++) {
+            mac.update(block);
+            if (info != null) {
+                mac.update(info);
+            }
+            mac.update((byte) i);
+            block = mac.doFinal();
+            int n = Math.min(HASH_LENGTH, length - off);
+            System.arraycopy(block, 0, okm, off, n);
+            off += n;
+        }
+        Arrays.fill(block, (byte) 0);
+        return okm;
+    }
+
+    public static byte[] derive(byte[] salt, byte[] ikm, byte[] info, int length) throws GeneralSecurityException {
+        byte[] prk = extract(salt, ikm);
+        try {
+            return expand(prk, info, length);
+        } finally {
+            Arrays.fill(prk, (byte) 0);
+        }
+    }
+}
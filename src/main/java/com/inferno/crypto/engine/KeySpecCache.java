@@ -0,0 +1,36 @@
+package com.inferno.crypto.engine;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Remembers the last {@link SecretKeySpec} built for a raw key so repeated
+ * calls with the same key bytes do not copy and wrap them again.
+ */
+public final class KeySpecCache {
+
+    private final String algorithm;
+    private byte[] lastKey;
+    private SecretKeySpec lastSpec;
+
+    public KeySpecCache(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public synchronized SecretKeySpec get(byte[] key) {
+        if (lastSpec == null || !MessageDigest.isEqual(lastKey, key)) {
+            lastKey = Arrays.copyOf(key, key.length);
+            lastSpec = new SecretKeySpec(key, algorithm);
+        }
+        return lastSpec;
+    }
+
+    public synchronized void invalidate() {
+        if (lastKey != null) {
+            Arrays.fill(lastKey, (byte) 0);
+        }
+        lastKey = null;
+        lastSpec = null;
+    }
+}
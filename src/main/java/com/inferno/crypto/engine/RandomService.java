@@ -0,0 +1,83 @@
+package com.inferno.crypto.engine;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.security.DrbgParameters.Capability.NONE;
+
+/**
+ * Central source of IVs, salts and key material.
+ *
+ * Every thread gets its own DRBG instance, seeded once from the system entropy
+ * source on first use, so concurrent callers neither reseed nor contend on a
+ * shared generator. GCM nonces are drawn here too, as 96 random bits each:
+ * unlike a counter they need no state per key, so nothing can reset them.
+ * Keys that never outlive the process can use the per-key counter nonces of
+ * {@link #nonces(Key)} instead.
+ */
+public final class RandomService {
+
+    private static final ThreadLocal<SecureRandom> DRBG = ThreadLocal.withInitial(RandomService::newDrbg);
+
+    private static final Map<String, CounterNonceGenerator> NONCES = new ConcurrentHashMap<>();
+
+    private RandomService() {}
+
+    private static SecureRandom newDrbg() {
+        try {
+            return SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(256, NONE, null));
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    /**
+     * The calling thread's generator. Do not hand it to other threads.
+     */
+    public static SecureRandom current() {
+        return DRBG.get();
+    }
+
+    public static void nextBytes(byte[] bytes) {
+        DRBG.get().nextBytes(bytes);
+    }
+
+    public static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        DRBG.get().nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * The counter nonce generator for {@code key}, created on first use. Keys
+     * with the same algorithm and bytes share one generator, looked up by a
+     * digest of the key rather than the key itself, and generators are kept
+     * for the life of the JVM so a counter is never started over. See
+     * {@link CounterNonceGenerator} for when counter nonces are safe.
+     */
+    public static CounterNonceGenerator nonces(Key key) {
+        return NONCES.computeIfAbsent(fingerprint(key), k -> new CounterNonceGenerator());
+    }
+
+    private static String fingerprint(Key key) {
+        byte[] encoded = key.getEncoded();
+        if (encoded == null) {
+            throw new IllegalArgumentException("Counter nonces need a key with an encoded form");
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(key.getAlgorithm().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return Base64.getEncoder().encodeToString(digest.digest(encoded));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.inferno.crypto.hashing;
 
+import com.inferno.crypto.engine.RandomService;
+
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
-import java.security.SecureRandom;
 import java.util.Base64;
 
 public class PBKDF2Hasher implements HashAlgorithm {
@@ -30,10 +31,7 @@ public class PBKDF2Hasher implements HashAlgorithm {
     }
 
     public byte[] generateSalt(int length) {
-        SecureRandom random = new SecureRandom();
-        byte[] salt = new byte[length];
-        random.nextBytes(salt);
-        return salt;
+        return RandomService.bytes(length);
     }
 
     @Override
@@ -1,17 +1,27 @@
 package com.inferno.crypto.io;
 
+import com.inferno.crypto.algorithm.AESCipher;
 import com.inferno.crypto.algorithm.CipherAlgorithm;
+import com.inferno.crypto.algorithm.RSACipher;
 import com.inferno.crypto.io.file.FileHandler;
+import com.inferno.crypto.io.stream.ParallelSegmentedGcm;
+import com.inferno.crypto.io.stream.SegmentedGcm;
+import com.inferno.crypto.io.stream.SegmentedGcmReader;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
 
 public class FileProcessor {
 
     private FileHandler fileHandler;
     private CipherAlgorithm cipher;
-    private double progress;
+    private volatile double progress;
     private Key key; // store encryption key
+    private int segmentSize = SegmentedGcm.DEFAULT_SEGMENT_SIZE;
+    private int parallelism = 1;
 
     public FileProcessor(FileHandler handler, CipherAlgorithm cipher, Key key) {
         this.fileHandler = handler;
@@ -20,20 +30,118 @@ public class FileProcessor {
     }
 
 
+    /**
+     * An {@link AESCipher} configured for GCM, with an AES key, is processed
+     * through the segmented GCM format in constant memory, as are RSA
+     * envelopes; every other configuration falls back to whole-file
+     * processing through the configured {@link CipherAlgorithm}. With a
+     * parallelism above one GCM segments are spread over a ForkJoin pool; the
+     * output format is the same.
+     */
     public void processFile(File input, File output, boolean encrypt) throws Exception {
-        byte[] data = fileHandler.read(input);
-        byte[] result = encrypt ? cipher.encrypt(data, key) : cipher.decrypt(data, key);
-        fileHandler.write(output, result);
+        if (isEnvelope()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(input), segmentSize);
+                 OutputStream out = new BufferedOutputStream(new FileOutputStream(output), segmentSize)) {
+                processStream(in, out, encrypt);
+            } catch (Exception e) {
+                output.delete();
+                throw e;
+            }
+            return;
+        }
+        if (!isSegmented()) {
+            byte[] data = fileHandler.read(input);
+            byte[] result = encrypt ? cipher.encrypt(data, key) : cipher.decrypt(data, key);
+            fileHandler.write(output, result);
+            progress = 1.0;
+            return;
+        }
+
+        progress = 0.0;
+        long total = Math.max(1L, input.length());
+        if (parallelism > 1) {
+            try {
+                if (encrypt) {
+                    ParallelSegmentedGcm.encrypt(input.toPath(), output.toPath(), key, segmentSize,
+                            parallelism, done -> progress = (double) done / total);
+                } else {
+                    ParallelSegmentedGcm.decrypt(input.toPath(), output.toPath(), key,
+                            parallelism, done -> progress = Math.min(1.0, (double) done / total));
+                }
+            } catch (Exception e) {
+                output.delete();
+                throw e;
+            }
+            progress = 1.0;
+            return;
+        }
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(input), segmentSize);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(output), segmentSize)) {
+            if (encrypt) {
+                SegmentedGcm.encrypt(in, out, key, segmentSize, done -> progress = (double) done / total);
+            } else {
+                SegmentedGcm.decrypt(in, out, key, done -> progress = Math.min(1.0, (double) done / total));
+            }
+        } catch (Exception e) {
+            output.delete();
+            throw e;
+        }
         progress = 1.0;
     }
 
     public void processStream(InputStream in, OutputStream out, boolean encrypt) throws Exception {
-        byte[] buffer = in.readAllBytes();
-        byte[] result = encrypt ? cipher.encrypt(buffer, key) : cipher.decrypt(buffer, key);
-        out.write(result);
+        if (isEnvelope()) {
+            RSACipher rsa = (RSACipher) cipher;
+            if (encrypt) {
+                rsa.encryptEnvelope(in, out, (PublicKey) key);
+            } else {
+                rsa.decryptEnvelope(in, out, (PrivateKey) key);
+            }
+        } else if (isSegmented()) {
+            if (encrypt) {
+                SegmentedGcm.encrypt(in, out, key, segmentSize);
+            } else {
+                SegmentedGcm.decrypt(in, out, key);
+            }
+        } else {
+            byte[] buffer = in.readAllBytes();
+            byte[] result = encrypt ? cipher.encrypt(buffer, key) : cipher.decrypt(buffer, key);
+            out.write(result);
+        }
         progress = 1.0;
     }
 
+    /**
+     * Decrypts {@code length} plaintext bytes starting at {@code offset} from a
+     * file written in the segmented format. Only the segments covering the range
+     * are read and authenticated, so the cost does not depend on the offset.
+     *
+     * @throws IllegalStateException unless this processor uses the segmented format
+     */
+    public byte[] decryptRange(Path encrypted, long offset, long length) throws Exception {
+        if (!isSegmented()) {
+            throw new IllegalStateException(
+                    "Range decryption requires an AES-GCM cipher, an AES key and the segmented format");
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Range too large for a single array: " + length);
+        }
+        try (SegmentedGcmReader reader = new SegmentedGcmReader(encrypted, key)) {
+            return reader.readRange(offset, (int) length);
+        }
+    }
+
+    private boolean isEnvelope() {
+        return cipher instanceof RSACipher && ((RSACipher) cipher).isEnvelopeMode();
+    }
+
+    private boolean isSegmented() {
+        return cipher instanceof AESCipher
+                && ((AESCipher) cipher).getPadding().toUpperCase().contains("/GCM/")
+                && key != null && "AES".equalsIgnoreCase(key.getAlgorithm());
+    }
+
     public void setFileHandler(FileHandler handler) {
         this.fileHandler = handler;
     }
@@ -42,6 +150,18 @@ public class FileProcessor {
         this.cipher = cipher;
     }
 
+    public void setSegmentSize(int segmentSize) {
+        SegmentedGcm.checkSegmentSize(segmentSize);
+        this.segmentSize = segmentSize;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
     public double getProgress() {
         return progress;
     }
@@ -1,21 +1,47 @@
 package com.inferno.crypto.io.file;
 
+import com.inferno.crypto.algorithm.CipherAlgorithm;
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+
+import javax.crypto.ShortBufferException;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.Key;
 import java.util.ArrayList;
 import java.util.List;
 import java.io.IOException;
 
 public class BinaryFileHandler implements FileHandler {
 
+    public static final int DEFAULT_MAP_WINDOW = 64 * 1024 * 1024;
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int RECORD_PREFIX = Integer.BYTES;
+
     private final int bufferSize;
+    private int mapWindow = DEFAULT_MAP_WINDOW;
 
     public BinaryFileHandler(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
         this.bufferSize = bufferSize;
     }
 
     @Override
     public byte[] read(File file) throws IOException {
+        if (file.length() > MAX_ARRAY_SIZE) {
+            throw new IOException("File too large for a byte array, use encryptMapped/decryptMapped: " + file);
+        }
         return Files.readAllBytes(file.toPath());
     }
 
@@ -34,28 +60,139 @@ public class BinaryFileHandler implements FileHandler {
         return "BINARY";
     }
 
+    public void setMapWindow(int mapWindow) {
+        if (mapWindow <= 0) {
+            throw new IllegalArgumentException("Map window must be positive");
+        }
+        this.mapWindow = mapWindow;
+    }
+
     public List<byte[]> readChunks(File file, int chunkSize) throws Exception {
-        byte[] data = read(file);
         List<byte[]> chunks = new ArrayList<>();
-
-        for (int i = 0; i < data.length; i += chunkSize) {
-            int end = Math.min(data.length, i + chunkSize);
-            byte[] chunk = new byte[end - i];
-            System.arraycopy(data, i, chunk, 0, chunk.length);
-            chunks.add(chunk);
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] chunk;
+            while ((chunk = in.readNBytes(chunkSize)).length > 0) {
+                chunks.add(chunk);
+            }
         }
         return chunks;
     }
 
     public void writeChunks(File file, List<byte[]> chunks) throws Exception {
-        int totalSize = chunks.stream().mapToInt(c -> c.length).sum();
-        byte[] combined = new byte[totalSize];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), bufferSize)) {
+            for (byte[] chunk : chunks) {
+                out.write(chunk);
+            }
+        }
+    }
+
+    // === Mapped I/O ===
 
-        int pos = 0;
-        for (byte[] chunk : chunks) {
-            System.arraycopy(chunk, 0, combined, pos, chunk.length);
-            pos += chunk.length;
+    /**
+     * Encrypts {@code input} of any size into {@code output}. The input is
+     * mapped in windows of at most {@link #setMapWindow mapWindow} bytes and
+     * each window goes straight to {@link CipherAlgorithm#encrypt(ByteBuffer, ByteBuffer, Key)}
+     * as one message, so no file data is copied onto the heap. Results are
+     * written from a reused direct buffer rather than a mapped one, so the
+     * output never has to be truncated under a live mapping.
+     *
+     * The file is the plaintext length followed by one {@code length || message}
+     * record per window. Records are independent messages of {@code cipher};
+     * for authenticated large files use the segmented GCM format instead.
+     *
+     * @return number of plaintext bytes encrypted
+     */
+    public long encryptMapped(File input, File output, CipherAlgorithm cipher, Key key) throws Exception {
+        try (FileChannel in = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output.toPath(), StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(0, size);
+            writeFully(out, header);
+            ByteBuffer scratch = ByteBuffer.allocateDirect(mapWindow + RECORD_PREFIX + 1024);
+            for (long pos = 0; pos < size; pos += mapWindow) {
+                int len = (int) Math.min(mapWindow, size - pos);
+                ByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                scratch = transformRecord(cipher, key, window, scratch, true);
+                writeFully(out, scratch);
+            }
+            return size;
         }
-        write(file, combined);
+    }
+
+    /**
+     * Reverses {@link #encryptMapped}, mapping one record at a time.
+     *
+     * @return number of plaintext bytes written to {@code output}
+     */
+    public long decryptMapped(File input, File output, CipherAlgorithm cipher, Key key) throws Exception {
+        try (FileChannel in = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output.toPath(), StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            if (size < HEADER_SIZE) {
+                throw mappedError("Truncated mapped header", cipher, DecryptionFailureReason.SIZE_ERROR);
+            }
+            long expected = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).getLong(0);
+            ByteBuffer scratch = ByteBuffer.allocateDirect(mapWindow + 1024);
+            long written = 0;
+            for (long pos = HEADER_SIZE; pos < size; ) {
+                if (size - pos < RECORD_PREFIX) {
+                    throw mappedError("Truncated record", cipher, DecryptionFailureReason.SIZE_ERROR);
+                }
+                int len = in.map(FileChannel.MapMode.READ_ONLY, pos, RECORD_PREFIX).getInt(0);
+                pos += RECORD_PREFIX;
+                if (len < 0 || len > size - pos) {
+                    throw mappedError("Truncated record", cipher, DecryptionFailureReason.SIZE_ERROR);
+                }
+                ByteBuffer record = in.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                pos += len;
+                scratch = transformRecord(cipher, key, record, scratch, false);
+                written += scratch.remaining();
+                writeFully(out, scratch);
+            }
+            if (written != expected) {
+                throw mappedError("Expected " + expected + " bytes, decrypted " + written,
+                        cipher, DecryptionFailureReason.SIZE_ERROR);
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Runs {@code src} through {@code cipher} into {@code scratch}, growing it
+     * when the cipher reports a short buffer. On return the result, prefixed
+     * with its length when encrypting, lies between position and limit of the
+     * returned buffer.
+     */
+    private static ByteBuffer transformRecord(CipherAlgorithm cipher, Key key, ByteBuffer src,
+                                              ByteBuffer scratch, boolean encrypt) throws Exception {
+        int prefix = encrypt ? RECORD_PREFIX : 0;
+        while (true) {
+            scratch.clear();
+            scratch.position(prefix);
+            try {
+                ByteBuffer input = src.duplicate();
+                int n = encrypt ? cipher.encrypt(input, scratch, key) : cipher.decrypt(input, scratch, key);
+                if (encrypt) {
+                    scratch.putInt(0, n);
+                }
+                scratch.flip();
+                return scratch;
+            } catch (ShortBufferException e) {
+                scratch = ByteBuffer.allocateDirect(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static DecryptionFailedException mappedError(String message, CipherAlgorithm cipher,
+                                                         DecryptionFailureReason reason) {
+        return new DecryptionFailedException(message, cipher.getAlgorithmName(), "MAPPED", reason);
     }
 }
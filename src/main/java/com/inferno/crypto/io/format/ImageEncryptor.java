@@ -5,24 +5,22 @@ import com.inferno.crypto.algorithm.ImageCipher;
 import com.inferno.crypto.exception.CryptoException;
 import com.inferno.crypto.exception.UnsupportedFileException;
 import com.inferno.crypto.io.file.FileHandler;
-import com.inferno.crypto.io.file.FileValidator;
 import com.inferno.crypto.model.CryptoResult;
-import com.inferno.crypto.utils.FileUtils;
-import com.inferno.crypto.utils.ValidationUtils;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
 
 /**
  * ImageEncryptor - Handles encryption and decryption of various image formats.
- * Supports: PNG, JPEG, JPG, BMP, GIF, TIFF
+ * Supports: PNG, JPEG, JPG, BMP, GIF, TIFF as input. Encrypted images are
+ * only written in lossless true-colour formats, since JPEG compression or a
+ * GIF palette would destroy the ciphertext: PNG or TIFF, the formats that keep
+ * the format 2 header, and BMP as well for format 1.
  */
 public class ImageEncryptor implements FileHandler {
     
@@ -30,21 +28,40 @@ public class ImageEncryptor implements FileHandler {
         "png", "jpg", "jpeg", "bmp", "gif", "tiff", "tif"
     );
     
-    private static final List<String> LOSSLESS_FORMATS = Arrays.asList(
+    private static final List<String> LOSSLESS_OUTPUT = Arrays.asList(
         "png", "bmp", "tiff", "tif"
     );
     
-    private static final List<String> LOSSY_FORMATS = Arrays.asList(
-        "jpg", "jpeg"
-    );
+    private static final int MIN_PASSWORD_LENGTH = 8;
     
-    private final FileValidator fileValidator;
+    private final ImageCipher imageCipher;
     
     public ImageEncryptor() {
-        this.fileValidator = new FileValidator();
+        this.imageCipher = new ImageCipher();
+    }
+    
+    // --- FileHandler: raw image file access ---
+    
+    @Override
+    public byte[] read(File file) throws IOException {
+        return Files.readAllBytes(file.toPath());
     }
     
     @Override
+    public void write(File file, byte[] data) throws IOException {
+        Files.write(file.toPath(), data);
+    }
+    
+    @Override
+    public boolean validate(File file) {
+        return file.exists() && file.isFile() && file.canRead() && supportsFileType(file);
+    }
+    
+    @Override
+    public String getFileType() {
+        return "IMAGE";
+    }
+    
     public CryptoResult encrypt(File inputFile, File outputFile, String password, 
                                 CipherAlgorithm algorithm, String mode) throws CryptoException {
         
@@ -52,31 +69,30 @@ public class ImageEncryptor implements FileHandler {
             // Validate input
             validateInput(inputFile, password);
             
-            // Check if output directory exists
-            FileUtils.ensureDirectoryExists(outputFile.getParentFile());
-            
-            // Get file extension
-            String inputExtension = FileUtils.getFileExtension(inputFile);
-            String outputExtension = FileUtils.getFileExtension(outputFile);
-            
-            // Validate formats
-            if (!isSupportedFormat(inputExtension)) {
-                throw new UnsupportedFileException("Unsupported image format: " + inputExtension);
+            // Refuse lossy outputs, and outputs that would lose the format 2 header, before any work is done
+            ImageCipher cipher = imageCipher(algorithm);
+            String outputFormat = outputFormat(outputFile);
+            if (!LOSSLESS_OUTPUT.contains(outputFormat)) {
+                throw new UnsupportedFileException(
+                        "Encrypted images must be written in a lossless format, not " + outputFormat,
+                        outputFile.getPath(), LOSSLESS_OUTPUT.toArray(new String[0]));
             }
-            
-            // Handle JPEG separately (convert to PNG for encryption)
-            if (LOSSY_FORMATS.contains(inputExtension.toLowerCase())) {
-                return handleLossyImageEncryption(inputFile, outputFile, password, algorithm);
-            } else {
-                return handleLosslessImageEncryption(inputFile, outputFile, password, algorithm, inputExtension);
+            if (cipher.getFormatVersion() == ImageCipher.FORMAT_KEYSTREAM && !ImageCipher.keepsHeader(outputFormat)) {
+                throw new UnsupportedFileException(
+                        "Encrypted images must be written as PNG or TIFF, not " + outputFormat,
+                        outputFile.getPath(), new String[] {"png", "tif", "tiff"});
             }
             
+            // Check if output directory exists
+            ensureDirectoryExists(outputFile.getParentFile());
+            
+            return encryptInMemory(inputFile, outputFile, password, cipher, outputFormat);
+            
         } catch (IOException e) {
             throw new CryptoException("Image encryption failed: " + e.getMessage(), e);
         }
     }
     
-    @Override
     public CryptoResult decrypt(File inputFile, File outputFile, String password, 
                                 CipherAlgorithm algorithm, String mode) throws CryptoException {
         
@@ -85,16 +101,7 @@ public class ImageEncryptor implements FileHandler {
             validateInput(inputFile, password);
             
             // Check if output directory exists
-            FileUtils.ensureDirectoryExists(outputFile.getParentFile());
-            
-            // Get file extension
-            String inputExtension = FileUtils.getFileExtension(inputFile);
-            String outputExtension = FileUtils.getFileExtension(outputFile);
-            
-            // Validate input format
-            if (!isSupportedFormat(inputExtension)) {
-                throw new UnsupportedFileException("Unsupported image format: " + inputExtension);
-            }
+            ensureDirectoryExists(outputFile.getParentFile());
             
             // For decryption, we need to check if it's an encrypted image
             if (!isLikelyEncryptedImage(inputFile)) {
@@ -102,148 +109,90 @@ public class ImageEncryptor implements FileHandler {
             }
             
             // Perform decryption
-            return performImageDecryption(inputFile, outputFile, password, algorithm, outputExtension);
+            return performImageDecryption(inputFile, outputFile, password, imageCipher(algorithm), outputFormat(outputFile));
             
         } catch (IOException e) {
             throw new CryptoException("Image decryption failed: " + e.getMessage(), e);
         }
     }
     
-    @Override
     public boolean supportsFileType(File file) {
-        String extension = FileUtils.getFileExtension(file);
-        return isSupportedFormat(extension);
+        return isSupportedFormat(getFileExtension(file));
     }
     
-    @Override
     public List<String> getSupportedExtensions() {
         return SUPPORTED_EXTENSIONS;
     }
     
     /**
-     * Handles encryption of lossy images (JPEG/JPG)
+     * Decode, encrypt and encode in memory; only the output file is written.
      */
-    private CryptoResult handleLossyImageEncryption(File inputFile, File outputFile, 
-                                                    String password, CipherAlgorithm algorithm) throws IOException {
+    private CryptoResult encryptInMemory(File inputFile, File outputFile, String password,
+                                         ImageCipher cipher, String outputFormat)
+            throws IOException, CryptoException {
+        long start = System.nanoTime();
+        BufferedImage image = ImageCipher.readImage(inputFile);
+        if (image == null) {
+            throw new IOException("Could not read image file");
+        }
         
-        // Create a temporary PNG file
-        File tempPngFile = createTempFile("temp_encrypt_", ".png");
+        BufferedImage encryptedImage = cipher.encrypt(image, password);
+        ImageCipher.writeImage(encryptedImage, outputFormat, outputFile);
         
-        try {
-            // Convert JPEG to PNG first
-            BufferedImage image = ImageIO.read(inputFile);
-            if (image == null) {
-                throw new IOException("Could not read image file");
-            }
-            
-            ImageIO.write(image, "png", tempPngFile);
-            
-            // Encrypt the PNG file
-            File encryptedTempFile = createTempFile("encrypted_", ".png");
-            
-            // Use ImageCipher for encryption
-            ImageCipher.encryptImage(tempPngFile.getAbsolutePath(), 
-                                    encryptedTempFile.getAbsolutePath(), 
-                                    password);
-            
-            // If output is specified as JPEG, we need to convert back
-            String outputExtension = FileUtils.getFileExtension(outputFile);
-            if (LOSSY_FORMATS.contains(outputExtension.toLowerCase())) {
-                BufferedImage encryptedImage = ImageIO.read(encryptedTempFile);
-                ImageIO.write(encryptedImage, "jpg", outputFile);
-            } else {
-                // Copy the encrypted PNG to output
-                Files.copy(encryptedTempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            }
-            
-            // Clean up temp files
-            tempPngFile.delete();
-            encryptedTempFile.delete();
-            
-            return CryptoResult.success("Image encrypted successfully", 
-                                       outputFile.getAbsolutePath(),
-                                       Files.size(outputFile.toPath()));
-            
-        } finally {
-            // Ensure temp file is deleted even if an exception occurs
-            if (tempPngFile.exists()) {
-                tempPngFile.delete();
-            }
-        }
+        return result("Image encrypted successfully", outputFile, cipher, start);
     }
     
     /**
-     * Handles encryption of lossless images
+     * Performs image decryption
      */
-    private CryptoResult handleLosslessImageEncryption(File inputFile, File outputFile, 
-                                                       String password, CipherAlgorithm algorithm,
-                                                       String originalExtension) throws IOException {
+    private CryptoResult performImageDecryption(File inputFile, File outputFile, String password,
+                                                ImageCipher cipher, String outputFormat)
+            throws IOException, CryptoException {
+        long start = System.nanoTime();
+        BufferedImage image = ImageCipher.readImage(inputFile);
+        if (image == null) {
+            throw new IOException("Could not read image file");
+        }
         
-        // For lossless formats, we can encrypt directly
-        File tempEncryptedFile = createTempFile("encrypted_", ".png");
+        BufferedImage decryptedImage = cipher.decrypt(image, password);
+        ImageCipher.writeImage(decryptedImage, outputFormat, outputFile);
         
-        try {
-            // Use ImageCipher for encryption
-            ImageCipher.encryptImage(inputFile.getAbsolutePath(), 
-                                    tempEncryptedFile.getAbsolutePath(), 
-                                    password);
-            
-            // Copy to output with appropriate extension
-            String outputExtension = FileUtils.getFileExtension(outputFile);
-            if (!outputExtension.equalsIgnoreCase("png")) {
-                // Convert to desired format
-                BufferedImage encryptedImage = ImageIO.read(tempEncryptedFile);
-                ImageIO.write(encryptedImage, outputExtension, outputFile);
-            } else {
-                Files.copy(tempEncryptedFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            }
-            
-            tempEncryptedFile.delete();
-            
-            return CryptoResult.success("Image encrypted successfully", 
-                                       outputFile.getAbsolutePath(),
-                                       Files.size(outputFile.toPath()));
-            
-        } finally {
-            if (tempEncryptedFile.exists()) {
-                tempEncryptedFile.delete();
-            }
-        }
+        return result("Image decrypted successfully", outputFile, cipher, start);
+    }
+    
+    private CryptoResult result(String message, File outputFile, ImageCipher cipher, long start)
+            throws IOException {
+        CryptoResult result = new CryptoResult();
+        result.setSuccess(true);
+        result.setMessage(message);
+        result.setOutputFile(outputFile);
+        result.setAlgorithm(cipher.getAlgorithmName());
+        result.setDataSize((int) Math.min(Integer.MAX_VALUE, Files.size(outputFile.toPath())));
+        result.setTimeTaken((System.nanoTime() - start) / 1_000_000);
+        return result;
     }
     
     /**
-     * Performs image decryption
+     * The caller's ImageCipher, so its format settings apply, or a shared default
      */
-    private CryptoResult performImageDecryption(File inputFile, File outputFile, 
-                                                String password, CipherAlgorithm algorithm,
-                                                String outputExtension) throws IOException {
-        
-        File tempDecryptedFile = createTempFile("decrypted_", ".png");
-        
-        try {
-            // Use ImageCipher for decryption
-            ImageCipher.decryptImage(inputFile.getAbsolutePath(), 
-                                    tempDecryptedFile.getAbsolutePath(), 
-                                    password);
-            
-            // Handle output format
-            if (!outputExtension.equalsIgnoreCase("png")) {
-                BufferedImage decryptedImage = ImageIO.read(tempDecryptedFile);
-                ImageIO.write(decryptedImage, outputExtension, outputFile);
-            } else {
-                Files.copy(tempDecryptedFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            }
-            
-            tempDecryptedFile.delete();
-            
-            return CryptoResult.success("Image decrypted successfully", 
-                                       outputFile.getAbsolutePath(),
-                                       Files.size(outputFile.toPath()));
-            
-        } finally {
-            if (tempDecryptedFile.exists()) {
-                tempDecryptedFile.delete();
-            }
+    private ImageCipher imageCipher(CipherAlgorithm algorithm) {
+        return algorithm instanceof ImageCipher ? (ImageCipher) algorithm : imageCipher;
+    }
+    
+    private String outputFormat(File outputFile) {
+        String extension = getFileExtension(outputFile);
+        return extension.isEmpty() ? "png" : extension.toLowerCase();
+    }
+    
+    private static String getFileExtension(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot == -1 ? "" : name.substring(dot + 1);
+    }
+    
+    private static void ensureDirectoryExists(File directory) throws IOException {
+        if (directory != null) {
+            Files.createDirectories(directory.toPath());
         }
     }
     
@@ -251,11 +200,16 @@ public class ImageEncryptor implements FileHandler {
      * Validates input file and password
      */
     private void validateInput(File inputFile, String password) throws CryptoException {
-        if (!fileValidator.isValidFile(inputFile)) {
+        if (!inputFile.isFile() || !inputFile.canRead()) {
             throw new CryptoException("Invalid input file");
         }
         
-        if (!ValidationUtils.isValidPassword(password)) {
+        if (!isSupportedFormat(getFileExtension(inputFile))) {
+            throw UnsupportedFileException.createForExtension(inputFile.getPath(),
+                    SUPPORTED_EXTENSIONS.toArray(new String[0]));
+        }
+        
+        if (password == null || password.length() < MIN_PASSWORD_LENGTH) {
             throw new CryptoException("Invalid password. Password must be at least 8 characters long");
         }
     }
@@ -264,27 +218,19 @@ public class ImageEncryptor implements FileHandler {
      * Checks if the file format is supported
      */
     private boolean isSupportedFormat(String extension) {
-        if (extension == null) return false;
         return SUPPORTED_EXTENSIONS.contains(extension.toLowerCase());
     }
     
-    /**
-     * Creates a temporary file
-     */
-    private File createTempFile(String prefix, String suffix) throws IOException {
-        return File.createTempFile(prefix, suffix);
-    }
-    
     /**
      * Checks if an image is likely encrypted by this system
      */
     private boolean isLikelyEncryptedImage(File file) throws IOException {
         // Simple heuristic: check file extension and size
-        String extension = FileUtils.getFileExtension(file);
+        String extension = getFileExtension(file);
         long fileSize = Files.size(file.toPath());
         
-        // Encrypted images are always saved as PNG
-        if (!extension.equalsIgnoreCase("png")) {
+        // Encrypted images are saved as PNG, or TIFF when tiled
+        if (!ImageCipher.keepsHeader(extension)) {
             return false;
         }
         
@@ -305,7 +251,7 @@ public class ImageEncryptor implements FileHandler {
             image.getWidth(),
             image.getHeight(),
             image.getType(),
-            FileUtils.getFileExtension(imageFile),
+            getFileExtension(imageFile),
             Files.size(imageFile.toPath())
         );
     }
@@ -1,31 +1,146 @@
 package com.inferno.crypto.io.stream;
 
 import com.inferno.crypto.algorithm.CipherAlgorithm;
+import com.inferno.crypto.algorithm.SymmetricCipher;
 
+import javax.crypto.Cipher;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.Key;
 
+/**
+ * Decrypts the underlying stream incrementally with {@link Cipher#update},
+ * reading at most {@value #BUFFER_SIZE} bytes ahead. Counterpart of
+ * {@link CryptoOutputStream}: ciphers that offer a stream engine expect their
+ * IV in front of the ciphertext, other {@link CipherAlgorithm}s are read and
+ * decrypted in one call.
+ *
+ * GCM engines are refused: the JDK releases no GCM plaintext before
+ * {@code doFinal} has checked the tag, so the whole stream would pile up in
+ * memory. Use {@link SegmentedGcm} for authenticated streams.
+ */
 public class CryptoInputStream extends InputStream {
 
-    private final byte[] decryptedData;
-    private int position = 0;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+    private final Cipher engine;
+    private final byte[] in;
+    private byte[] out;
+    private int outPos;
+    private int outLen;
+    private boolean finished;
+    private final byte[] single = new byte[1];
+
+    public CryptoInputStream(InputStream is, Cipher engine) {
+        this.inputStream = is;
+        this.engine = checkStreamable(engine);
+        this.in = new byte[BUFFER_SIZE];
+        this.out = new byte[engine.getOutputSize(BUFFER_SIZE)];
+    }
 
     public CryptoInputStream(InputStream is,
                              CipherAlgorithm cipher,
                              Key key) throws IOException {
+        this.inputStream = is;
         try {
-            byte[] encrypted = is.readAllBytes();
-            this.decryptedData = cipher.decrypt(encrypted, key); // ✅ key passed
+            this.engine = streamEngine(is, cipher);
+            if (engine == null) {
+                byte[] encrypted = is.readAllBytes();
+                this.in = null;
+                this.out = cipher.decrypt(encrypted, key);
+                this.outLen = out.length;
+                this.finished = true;
+            } else {
+                this.in = new byte[BUFFER_SIZE];
+                this.out = new byte[engine.getOutputSize(BUFFER_SIZE)];
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
-            throw new IOException("Decryption failed", e); // ✅ wrapped
+            throw new IOException("Decryption failed", e);
+        }
+    }
+
+    private static Cipher streamEngine(InputStream is, CipherAlgorithm cipher) throws Exception {
+        if (!(cipher instanceof SymmetricCipher)) {
+            return null;
+        }
+        SymmetricCipher symmetric = (SymmetricCipher) cipher;
+        byte[] iv = new byte[symmetric.getStreamIVLength()];
+        if (is.readNBytes(iv, 0, iv.length) != iv.length) {
+            throw new IOException("Decryption failed: stream too short for IV");
+        }
+        Cipher engine = symmetric.createStreamCipher(Cipher.DECRYPT_MODE, iv);
+        return engine == null ? null : checkStreamable(engine);
+    }
+
+    /**
+     * Refuses GCM engines on both sides of the stream pair: decryption would
+     * hold all plaintext until doFinal, so such a stream could never be read.
+     */
+    static Cipher checkStreamable(Cipher engine) {
+        if (engine.getAlgorithm().toUpperCase().contains("/GCM/")) {
+            throw new IllegalArgumentException(
+                    "GCM cannot be used as a stream, it holds all plaintext until doFinal; use SegmentedGcm");
+        }
+        return engine;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outPos == outLen) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, outLen - outPos);
+        System.arraycopy(out, outPos, b, off, n);
+        outPos += n;
+        return n;
+    }
+
+    private void fill() throws IOException {
+        int read = inputStream.read(in, 0, in.length);
+        try {
+            outPos = 0;
+            if (read == -1) {
+                outLen = engine.doFinal(output(0), 0);
+                finished = true;
+            } else {
+                outLen = engine.update(in, 0, read, output(read), 0);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Decryption failed", e);
+        }
+    }
+
+    private byte[] output(int inputLength) {
+        int needed = engine.getOutputSize(inputLength);
+        if (needed > out.length) {
+            out = new byte[needed];
         }
+        return out;
+    }
+
+    @Override
+    public int available() {
+        return outLen - outPos;
     }
 
     @Override
-    public int read() {
-        return (position < decryptedData.length)
-                ? decryptedData[position++] & 0xff
-                : -1;
+    public void close() throws IOException {
+        inputStream.close();
     }
 }
@@ -1,39 +1,134 @@
 package com.inferno.crypto.io.stream;
 
 import com.inferno.crypto.algorithm.CipherAlgorithm;
+import com.inferno.crypto.algorithm.SymmetricCipher;
+import com.inferno.crypto.engine.RandomService;
 
+import javax.crypto.Cipher;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.GeneralSecurityException;
 import java.security.Key;
 
+/**
+ * Encrypts everything written to it with {@link Cipher#update}, passing
+ * ciphertext on as soon as whole blocks are available. Ciphers that offer a
+ * stream engine get their IV written in front of the ciphertext; other
+ * {@link CipherAlgorithm}s are buffered and encrypted in one call on close.
+ * GCM engines are refused, as by {@link CryptoInputStream}; use
+ * {@link SegmentedGcm} for authenticated streams.
+ */
 public class CryptoOutputStream extends OutputStream {
 
+    private static final int BUFFER_SIZE = 8192;
+
     private final OutputStream outputStream;
+    private final Cipher engine;
     private final CipherAlgorithm cipher;
     private Key key;
-    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream buffer;
+    private byte[] out;
+    private final byte[] single = new byte[1];
+    private boolean closed;
+
+    public CryptoOutputStream(OutputStream os, Cipher engine) {
+        this.outputStream = os;
+        this.engine = CryptoInputStream.checkStreamable(engine);
+        this.cipher = null;
+        this.buffer = null;
+        this.out = new byte[engine.getOutputSize(BUFFER_SIZE)];
+    }
 
-    public CryptoOutputStream(OutputStream os, CipherAlgorithm cipher, Key key) {
+    public CryptoOutputStream(OutputStream os, CipherAlgorithm cipher, Key key) throws IOException {
         this.outputStream = os;
         this.cipher = cipher;
         this.key = key;
+        this.engine = streamEngine(os, cipher);
+        this.buffer = engine == null ? new ByteArrayOutputStream() : null;
+        this.out = engine == null ? null : new byte[engine.getOutputSize(BUFFER_SIZE)];
+    }
+
+    private static Cipher streamEngine(OutputStream os, CipherAlgorithm cipher) throws IOException {
+        if (!(cipher instanceof SymmetricCipher)) {
+            return null;
+        }
+        SymmetricCipher symmetric = (SymmetricCipher) cipher;
+        try {
+            byte[] iv = new byte[symmetric.getStreamIVLength()];
+            RandomService.nextBytes(iv);
+            Cipher engine = symmetric.createStreamCipher(Cipher.ENCRYPT_MODE, iv);
+            if (engine != null) {
+                CryptoInputStream.checkStreamable(engine);
+                os.write(iv);
+            }
+            return engine;
+        } catch (IOException | IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Encryption failed", e);
+        }
     }
 
     @Override
-    public void write(int b) {
-        buffer.write(b);
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (engine == null) {
+            buffer.write(b, off, len);
+            return;
+        }
+        try {
+            while (len > 0) {
+                int chunk = Math.min(len, BUFFER_SIZE);
+                int n = engine.update(b, off, chunk, output(chunk), 0);
+                outputStream.write(out, 0, n);
+                off += chunk;
+                len -= chunk;
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Encryption failed", e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
     }
 
     @Override
     public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
         try {
-            byte[] encrypted = cipher.encrypt(buffer.toByteArray(), key);
-            outputStream.write(encrypted);
-            outputStream.close();
+            if (engine == null) {
+                byte[] encrypted = cipher.encrypt(buffer.toByteArray(), key);
+                outputStream.write(encrypted);
+            } else {
+                int n = engine.doFinal(output(0), 0);
+                outputStream.write(out, 0, n);
+            }
         } catch (Exception e) {
             throw new IOException("Encryption failed", e);
+        } finally {
+            outputStream.close();
         }
     }
 
+    private byte[] output(int inputLength) {
+        int needed = engine.getOutputSize(inputLength);
+        if (needed > out.length) {
+            out = new byte[needed];
+        }
+        return out;
+    }
 }
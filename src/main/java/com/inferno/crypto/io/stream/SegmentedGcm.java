@@ -0,0 +1,327 @@
+package com.inferno.crypto.io.stream;
+
+import com.inferno.crypto.engine.CipherEngine;
+import com.inferno.crypto.engine.RandomService;
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Segmented AES-GCM stream format.
+ *
+ * <pre>
+ * header  : MAGIC(6) | version(1) | segmentSize(4) | noncePrefix(7)
+ * segment : ciphertext(segmentSize, last one may be shorter) | tag(16)
+ * </pre>
+ *
+ * Every segment is authenticated on its own with the header as AAD. Its nonce
+ * is {@code noncePrefix | segmentIndex(4) | lastFlag(1)}, so segments can be
+ * processed independently and truncation or reordering is detected.
+ */
+public final class SegmentedGcm {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+    public static final int TAG_SIZE = 16;
+    public static final int NONCE_SIZE = 12;
+    public static final int NONCE_PREFIX_SIZE = 7;
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = "INFSEG".getBytes(StandardCharsets.US_ASCII);
+    public static final int HEADER_SIZE = MAGIC.length + 1 + 4 + NONCE_PREFIX_SIZE;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int MIN_SEGMENT_SIZE = 1024;
+    private static final long MAX_SEGMENTS = 0xFFFFFFFFL;
+
+
+    private SegmentedGcm() {}
+
+    // === Header ===
+
+    public static final class Header {
+        private final int segmentSize;
+        private final byte[] noncePrefix;
+        private final byte[] encoded;
+
+        Header(int segmentSize, byte[] noncePrefix) {
+            this.segmentSize = segmentSize;
+            this.noncePrefix = noncePrefix;
+            this.encoded = new byte[HEADER_SIZE];
+            System.arraycopy(MAGIC, 0, encoded, 0, MAGIC.length);
+            int pos = MAGIC.length;
+            encoded[pos++] = (byte) VERSION;
+            for (int i = 3; i >= 0; i--) {
+                encoded[pos++] = (byte) (segmentSize >>> (8 * i));
+            }
+            System.arraycopy(noncePrefix, 0, encoded, pos, NONCE_PREFIX_SIZE);
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public int getCiphertextSegmentSize() {
+            return segmentSize + TAG_SIZE;
+        }
+
+        public byte[] toBytes() {
+            return encoded.clone();
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(encoded);
+        }
+
+        public byte[] nonce(long segmentIndex, boolean last) {
+            if (segmentIndex < 0 || segmentIndex > MAX_SEGMENTS) {
+                throw new IllegalArgumentException("Segment index out of range: " + segmentIndex);
+            }
+            byte[] nonce = new byte[NONCE_SIZE];
+            System.arraycopy(noncePrefix, 0, nonce, 0, NONCE_PREFIX_SIZE);
+            nonce[7] = (byte) (segmentIndex >>> 24);
+            nonce[8] = (byte) (segmentIndex >>> 16);
+            nonce[9] = (byte) (segmentIndex >>> 8);
+            nonce[10] = (byte) segmentIndex;
+            nonce[11] = (byte) (last ? 1 : 0);
+            return nonce;
+        }
+    }
+
+    public static void checkSegmentSize(int segmentSize) {
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > Integer.MAX_VALUE - TAG_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_SIZE + " bytes");
+        }
+    }
+
+    public static Header newHeader(int segmentSize) {
+        checkSegmentSize(segmentSize);
+        byte[] prefix = new byte[NONCE_PREFIX_SIZE];
+        RandomService.nextBytes(prefix);
+        return new Header(segmentSize, prefix);
+    }
+
+    public static Header readHeader(InputStream in) throws IOException, DecryptionFailedException {
+        byte[] encoded = new byte[HEADER_SIZE];
+        if (readFully(in, encoded, 0, HEADER_SIZE) != HEADER_SIZE) {
+            throw formatError("Truncated segmented header");
+        }
+        return parseHeader(encoded);
+    }
+
+    public static Header parseHeader(byte[] encoded) throws DecryptionFailedException {
+        if (encoded.length < HEADER_SIZE
+                || !Arrays.equals(Arrays.copyOf(encoded, MAGIC.length), MAGIC)) {
+            throw formatError("Not a segmented GCM stream");
+        }
+        int pos = MAGIC.length;
+        if ((encoded[pos++] & 0xFF) != VERSION) {
+            throw new DecryptionFailedException("Unsupported segmented format version",
+                    "AES", "GCM", DecryptionFailureReason.VERSION_MISMATCH);
+        }
+        int segmentSize = 0;
+        for (int i = 0; i < 4; i++) {
+            segmentSize = (segmentSize << 8) | (encoded[pos++] & 0xFF);
+        }
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > Integer.MAX_VALUE - TAG_SIZE) {
+            throw formatError("Invalid segment size: " + segmentSize);
+        }
+        return new Header(segmentSize, Arrays.copyOfRange(encoded, pos, pos + NONCE_PREFIX_SIZE));
+    }
+
+    // === Sizes ===
+
+    public static long segmentCount(long plaintextLength, int segmentSize) {
+        return plaintextLength == 0 ? 1 : (plaintextLength + segmentSize - 1) / segmentSize;
+    }
+
+    public static long ciphertextLength(long plaintextLength, int segmentSize) {
+        return HEADER_SIZE + plaintextLength + segmentCount(plaintextLength, segmentSize) * TAG_SIZE;
+    }
+
+    /**
+     * Plaintext length implied by a ciphertext of {@code ciphertextLength} bytes.
+     */
+    public static long plaintextLength(long ciphertextLength, Header header) throws DecryptionFailedException {
+        long body = ciphertextLength - HEADER_SIZE;
+        long sealed = header.getCiphertextSegmentSize();
+        long tail = body % sealed;
+        if (body < TAG_SIZE || (tail != 0 && tail < TAG_SIZE)) {
+            throw new DecryptionFailedException("Truncated segmented stream",
+                    "AES", "GCM", DecryptionFailureReason.SIZE_ERROR);
+        }
+        long segments = body / sealed + (tail == 0 ? 0 : 1);
+        return body - segments * TAG_SIZE;
+    }
+
+    // === Single segment ===
+
+    public static int encryptSegment(Key key, Header header, long index, boolean last,
+                                     byte[] in, int inOff, int len, byte[] out, int outOff)
+            throws GeneralSecurityException {
+        Cipher cipher = CipherEngine.init(TRANSFORMATION, Cipher.ENCRYPT_MODE, key,
+                new GCMParameterSpec(TAG_SIZE * 8, header.nonce(index, last)));
+        cipher.updateAAD(header.encoded);
+        return cipher.doFinal(in, inOff, len, out, outOff);
+    }
+
+    public static int decryptSegment(Key key, Header header, long index, boolean last,
+                                     byte[] in, int inOff, int len, byte[] out, int outOff)
+            throws GeneralSecurityException, DecryptionFailedException {
+        if (len < TAG_SIZE) {
+            throw formatError("Truncated segment " + index);
+        }
+        Cipher cipher = CipherEngine.init(TRANSFORMATION, Cipher.DECRYPT_MODE, key,
+                new GCMParameterSpec(TAG_SIZE * 8, header.nonce(index, last)));
+        cipher.updateAAD(header.encoded);
+        try {
+            return cipher.doFinal(in, inOff, len, out, outOff);
+        } catch (AEADBadTagException e) {
+            throw new DecryptionFailedException("Segment " + index + " failed authentication", e,
+                    "AES", "GCM", DecryptionFailureReason.AUTHENTICATION_FAILED);
+        }
+    }
+
+    // === Whole streams ===
+
+    public static long encrypt(InputStream in, OutputStream out, Key key, int segmentSize)
+            throws IOException, GeneralSecurityException {
+        return encrypt(in, out, key, segmentSize, null);
+    }
+
+    /**
+     * Encrypts {@code in} to {@code out}, holding at most two plaintext
+     * segments and one ciphertext segment in memory.
+     *
+     * @return number of plaintext bytes consumed
+     */
+    public static long encrypt(InputStream in, OutputStream out, Key key, int segmentSize,
+                               LongConsumer progress) throws IOException, GeneralSecurityException {
+        return encrypt(in, out, key, newHeader(segmentSize), progress);
+    }
+
+    public static long encrypt(InputStream in, OutputStream out, Key key, Header header,
+                               LongConsumer progress) throws IOException, GeneralSecurityException {
+        int segmentSize = header.getSegmentSize();
+        header.writeTo(out);
+
+        byte[] current = new byte[segmentSize];
+        byte[] next = new byte[segmentSize];
+        byte[] sealed = new byte[segmentSize + TAG_SIZE];
+
+        int currentLen = readFully(in, current, 0, segmentSize);
+        long index = 0;
+        long total = 0;
+        while (true) {
+            int nextLen = currentLen == segmentSize ? readFully(in, next, 0, segmentSize) : 0;
+            boolean last = nextLen == 0;
+
+            int n = encryptSegment(key, header, index, last, current, 0, currentLen, sealed, 0);
+            out.write(sealed, 0, n);
+            total += currentLen;
+            if (progress != null) {
+                progress.accept(total);
+            }
+            if (last) {
+                return total;
+            }
+
+            byte[] tmp = current;
+            current = next;
+            next = tmp;
+            currentLen = nextLen;
+            index++;
+        }
+    }
+
+    public static long decrypt(InputStream in, OutputStream out, Key key)
+            throws IOException, GeneralSecurityException, DecryptionFailedException {
+        return decrypt(in, out, key, null);
+    }
+
+    /**
+     * Decrypts a stream written by {@link #encrypt}. Nothing from a segment is
+     * written before its tag has been verified.
+     *
+     * @return number of plaintext bytes written
+     */
+    public static long decrypt(InputStream in, OutputStream out, Key key, LongConsumer progress)
+            throws IOException, GeneralSecurityException, DecryptionFailedException {
+        Header header = readHeader(in);
+        int sealedSize = header.getCiphertextSegmentSize();
+
+        byte[] current = new byte[sealedSize];
+        byte[] next = new byte[sealedSize];
+        byte[] plain = new byte[header.getSegmentSize()];
+
+        int currentLen = readFully(in, current, 0, sealedSize);
+        long index = 0;
+        long total = 0;
+        while (true) {
+            int nextLen = currentLen == sealedSize ? readFully(in, next, 0, sealedSize) : 0;
+            boolean last = nextLen == 0;
+
+            int n = decryptSegment(key, header, index, last, current, 0, currentLen, plain, 0);
+            out.write(plain, 0, n);
+            total += n;
+            if (progress != null) {
+                progress.accept(total);
+            }
+            if (last) {
+                return total;
+            }
+
+            byte[] tmp = current;
+            current = next;
+            next = tmp;
+            currentLen = nextLen;
+            index++;
+        }
+    }
+
+    static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    static int readFully(InputStream in, byte[] buffer, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            int read = in.read(buffer, off + total, len - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static DecryptionFailedException formatError(String message) {
+        return new DecryptionFailedException(message, "AES", "GCM", DecryptionFailureReason.FORMAT_ERROR);
+    }
+}
@@ -0,0 +1,133 @@
+package com.inferno.crypto.io.stream;
+
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+import com.inferno.crypto.io.stream.SegmentedGcm.Header;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+
+/**
+ * Random-access reads over a file in the {@link SegmentedGcm} format.
+ *
+ * Every segment is sealed independently and sits at a fixed offset, so a read
+ * at any plaintext position opens and authenticates only the segments that
+ * cover it. The most recently opened segment is kept, which makes small
+ * sequential reads cost one decryption per segment.
+ */
+public class SegmentedGcmReader implements Closeable {
+
+    private final FileChannel channel;
+    private final Key key;
+    private final Header header;
+    private final long length;
+    private final long lastIndex;
+
+    private final byte[] sealed;
+    private final byte[] plain;
+    private long cachedIndex = -1;
+    private int cachedLength;
+
+    public SegmentedGcmReader(Path path, Key key) throws IOException, DecryptionFailedException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            byte[] encoded = new byte[SegmentedGcm.HEADER_SIZE];
+            if (SegmentedGcm.readFully(channel, ByteBuffer.wrap(encoded), 0) != encoded.length) {
+                throw new DecryptionFailedException("Truncated segmented header",
+                        "AES", "GCM", DecryptionFailureReason.FORMAT_ERROR);
+            }
+            this.header = SegmentedGcm.parseHeader(encoded);
+            this.length = SegmentedGcm.plaintextLength(channel.size(), header);
+        } catch (IOException | DecryptionFailedException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.key = key;
+        this.lastIndex = SegmentedGcm.segmentCount(length, header.getSegmentSize()) - 1;
+        this.sealed = new byte[header.getCiphertextSegmentSize()];
+        this.plain = new byte[header.getSegmentSize()];
+    }
+
+    /**
+     * Plaintext length of the underlying file.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Decrypts up to {@code len} bytes starting at plaintext {@code position}.
+     *
+     * @return the number of bytes copied, or -1 if {@code position} is at or past the end
+     */
+    public synchronized int read(long position, byte[] dst, int off, int len)
+            throws IOException, GeneralSecurityException, DecryptionFailedException {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position must not be negative: " + position);
+        }
+        if (off < 0 || len < 0 || len > dst.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (position >= length) {
+            return len == 0 ? 0 : -1;
+        }
+        int segmentSize = header.getSegmentSize();
+        int total = 0;
+        while (total < len && position < length) {
+            long index = position / segmentSize;
+            load(index);
+            int inSegment = (int) (position - index * segmentSize);
+            int n = Math.min(len - total, cachedLength - inSegment);
+            System.arraycopy(plain, inSegment, dst, off + total, n);
+            total += n;
+            position += n;
+        }
+        return total;
+    }
+
+    /**
+     * Decrypts the plaintext range {@code [offset, offset + length)}.
+     *
+     * @throws IllegalArgumentException if the range lies outside the file
+     */
+    public byte[] readRange(long offset, int length)
+            throws IOException, GeneralSecurityException, DecryptionFailedException {
+        if (offset < 0 || length < 0 || offset > this.length - length) {
+            throw new IllegalArgumentException("Range [" + offset + ", " + (offset + length)
+                    + ") outside plaintext of " + this.length + " bytes");
+        }
+        byte[] result = new byte[length];
+        read(offset, result, 0, length);
+        return result;
+    }
+
+    private void load(long index) throws IOException, GeneralSecurityException, DecryptionFailedException {
+        if (index == cachedIndex) {
+            return;
+        }
+        int segmentSize = header.getSegmentSize();
+        int plainLen = (int) Math.min(segmentSize, length - index * segmentSize);
+        int sealedLen = plainLen + SegmentedGcm.TAG_SIZE;
+        long sealedPos = SegmentedGcm.HEADER_SIZE + index * header.getCiphertextSegmentSize();
+
+        cachedIndex = -1;
+        if (SegmentedGcm.readFully(channel, ByteBuffer.wrap(sealed, 0, sealedLen), sealedPos) != sealedLen) {
+            throw new DecryptionFailedException("Truncated segment " + index,
+                    "AES", "GCM", DecryptionFailureReason.SIZE_ERROR);
+        }
+        cachedLength = SegmentedGcm.decryptSegment(key, header, index, index == lastIndex,
+                sealed, 0, sealedLen, plain, 0);
+        cachedIndex = index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,15 +1,25 @@
 package com.inferno.crypto.key;
 
+import com.inferno.crypto.engine.RandomService;
+
 import javax.crypto.SecretKey;
 import java.security.KeyPair;
-import java.security.SecureRandom;
 
 public class KeyGenerator {
 
+    private volatile KeyPairPool keyPairPool;
+
+    /**
+     * Serve {@link #generateAsymmetricKeyPair} from {@code pool}; null generates inline.
+     */
+    public void setKeyPairPool(KeyPairPool pool) {
+        this.keyPairPool = pool;
+    }
+
     public SecretKey generateSymmetricKey(String algorithm, int size) {
         try {
             javax.crypto.KeyGenerator keyGen = javax.crypto.KeyGenerator.getInstance(algorithm);
-            keyGen.init(size, new SecureRandom());
+            keyGen.init(size, RandomService.current());
             return keyGen.generateKey();
         } catch (Exception e) {
             throw new RuntimeException("Symmetric key gen failed", e);
@@ -18,18 +28,18 @@ public class KeyGenerator {
 
     public KeyPair generateAsymmetricKeyPair(String algorithm, int size) {
         try {
-            java.security.KeyPairGenerator gen = java.security.KeyPairGenerator.getInstance(algorithm);
-            gen.initialize(size, new SecureRandom());
-            return gen.generateKeyPair();
+            KeyPairPool pool = keyPairPool;
+            if (pool != null) {
+                return pool.take(algorithm, size);
+            }
+            return KeyPairPool.generate(algorithm, size);
         } catch (Exception e) {
             throw new RuntimeException("Asymmetric key pair gen failed", e);
         }
     }
 
     public byte[] generateIV(int length) {
-        byte[] iv = new byte[length];
-        new SecureRandom().nextBytes(iv);
-        return iv;
+        return RandomService.bytes(length);
     }
 
     public byte[] generateSalt(int length) {
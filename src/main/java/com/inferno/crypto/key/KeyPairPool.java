@@ -0,0 +1,171 @@
+package com.inferno.crypto.key;
+
+import com.inferno.crypto.engine.RandomService;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps up to {@code capacity} ready key pairs per (algorithm, key size) and
+ * tops them up on background threads, so handing out a pair is a queue pop
+ * rather than prime generation.
+ *
+ * A slot starts filling the first time it is warmed or taken from. Each slot
+ * generates at most one pair per refill interval and stops once full. A take
+ * from an empty slot is a miss and generates on the caller's thread.
+ */
+public class KeyPairPool implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private final int capacity;
+    private final long refillIntervalMillis;
+    private final ScheduledExecutorService refillers;
+    private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public KeyPairPool() {
+        this(DEFAULT_CAPACITY, 1, 0);
+    }
+
+    /**
+     * @param capacity             ready pairs kept per (algorithm, key size)
+     * @param threads              background generator threads shared by all slots
+     * @param refillIntervalMillis minimum pause between two background generations
+     *                             for the same slot; 0 refills as fast as possible
+     */
+    public KeyPairPool(int capacity, int threads, long refillIntervalMillis) {
+        if (capacity < 1 || threads < 1 || refillIntervalMillis < 0) {
+            throw new IllegalArgumentException("Capacity and threads must be positive, interval non-negative");
+        }
+        this.capacity = capacity;
+        this.refillIntervalMillis = refillIntervalMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.refillers = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "keypair-pool-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts filling the slot for {@code algorithm}/{@code keySize} ahead of use.
+     */
+    public void warm(String algorithm, int keySize) {
+        slot(algorithm, keySize).refill();
+    }
+
+    public KeyPair take(String algorithm, int keySize) throws GeneralSecurityException {
+        Slot slot = slot(algorithm, keySize);
+        KeyPair pair = slot.ready.poll();
+        if (pair != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            pair = generate(algorithm, keySize);
+        }
+        slot.refill();
+        return pair;
+    }
+
+    public int available(String algorithm, int keySize) {
+        Slot slot = slots.get(slotKey(algorithm, keySize));
+        return slot == null ? 0 : slot.ready.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public void close() {
+        refillers.shutdownNow();
+    }
+
+    private Slot slot(String algorithm, int keySize) {
+        return slots.computeIfAbsent(slotKey(algorithm, keySize), k -> new Slot(algorithm, keySize));
+    }
+
+    private static String slotKey(String algorithm, int keySize) {
+        return algorithm.toUpperCase() + '/' + keySize;
+    }
+
+    static KeyPair generate(String algorithm, int keySize) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(keySize, RandomService.current());
+        return generator.generateKeyPair();
+    }
+
+    private final class Slot {
+        final String algorithm;
+        final int keySize;
+        final BlockingQueue<KeyPair> ready = new ArrayBlockingQueue<>(capacity);
+        final AtomicBoolean filling = new AtomicBoolean();
+
+        Slot(String algorithm, int keySize) {
+            this.algorithm = algorithm;
+            this.keySize = keySize;
+        }
+
+        void refill() {
+            if (ready.remainingCapacity() > 0 && filling.compareAndSet(false, true)) {
+                schedule(0);
+            }
+        }
+
+        private void schedule(long delayMillis) {
+            try {
+                refillers.schedule(this::fillOne, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                filling.set(false);
+            }
+        }
+
+        private void fillOne() {
+            try {
+                ready.offer(generate(algorithm, keySize));
+                generated.increment();
+            } catch (GeneralSecurityException | RuntimeException e) {
+                // Misses still generate synchronously and surface the error to the caller.
+                failures.increment();
+                filling.set(false);
+                return;
+            }
+            if (ready.remainingCapacity() > 0) {
+                schedule(refillIntervalMillis);
+            } else {
+                filling.set(false);
+                refill();
+            }
+        }
+    }
+}
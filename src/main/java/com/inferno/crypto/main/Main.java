@@ -25,7 +25,7 @@ public class Main {
             System.out.println("--- Testing AudioCipher ---");
             
             // 1. Create algorithm instance
-            CipherAlgorithm cipher = new AudioCipher();
+            AudioCipher cipher = new AudioCipher();
             
             // 2. Display algorithm info
             System.out.println("Algorithm: " + cipher.getName());
@@ -161,7 +161,7 @@ public class Main {
             System.out.println("--- Testing ImageCipher ---");
             
             // 1. Create algorithm instance
-            CipherAlgorithm cipher = new ImageCipher();
+            ImageCipher cipher = new ImageCipher();
             
             // 2. Display algorithm info
             System.out.println("Algorithm: " + cipher.getName());
@@ -1,12 +1,16 @@
 package com.inferno.crypto.mode;
 
+import com.inferno.crypto.engine.CipherEngine;
+import com.inferno.crypto.engine.KeySpecCache;
 import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 
 public class CBC implements EncryptionMode {
 
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
     private byte[] iv;
+    private final KeySpecCache keySpecs = new KeySpecCache("AES");
 
     public CBC(byte[] iv) {
         this.iv = iv;
@@ -18,10 +22,10 @@ public class CBC implements EncryptionMode {
 
     @Override
     public byte[] encryptBlock(byte[] block, byte[] key) throws Exception {
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-        cipher.init(
+        Cipher cipher = CipherEngine.init(
+            TRANSFORMATION,
             Cipher.ENCRYPT_MODE,
-            new SecretKeySpec(key, "AES"),
+            keySpecs.get(key),
             new IvParameterSpec(iv)
         );
         return cipher.doFinal(block);
@@ -29,10 +33,10 @@ public class CBC implements EncryptionMode {
 
     @Override
     public byte[] decryptBlock(byte[] block, byte[] key) throws Exception {
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-        cipher.init(
+        Cipher cipher = CipherEngine.init(
+            TRANSFORMATION,
             Cipher.DECRYPT_MODE,
-            new SecretKeySpec(key, "AES"),
+            keySpecs.get(key),
             new IvParameterSpec(iv)
         );
         return cipher.doFinal(block);
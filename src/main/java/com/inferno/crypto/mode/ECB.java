@@ -1,23 +1,26 @@
 package com.inferno.crypto.mode;
 
+import com.inferno.crypto.engine.CipherEngine;
+import com.inferno.crypto.engine.KeySpecCache;
 import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
 
 public class ECB implements EncryptionMode {
 
+    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+
+    private final KeySpecCache keySpecs = new KeySpecCache("AES");
+
     public ECB() {}
 
     @Override
     public byte[] encryptBlock(byte[] block, byte[] key) throws Exception {
-        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"));
+        Cipher cipher = CipherEngine.init(TRANSFORMATION, Cipher.ENCRYPT_MODE, keySpecs.get(key), null);
         return cipher.doFinal(block);
     }
 
     @Override
     public byte[] decryptBlock(byte[] block, byte[] key) throws Exception {
-        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"));
+        Cipher cipher = CipherEngine.init(TRANSFORMATION, Cipher.DECRYPT_MODE, keySpecs.get(key), null);
         return cipher.doFinal(block);
     }
 
@@ -1,14 +1,18 @@
 package com.inferno.crypto.mode;
 
+import com.inferno.crypto.engine.CipherEngine;
+import com.inferno.crypto.engine.KeySpecCache;
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 
 public class GCM implements EncryptionMode {
 
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
     private byte[] iv;
     private byte[] aad;
     private byte[] tag;
+    private final KeySpecCache keySpecs = new KeySpecCache("AES");
 
     public GCM(byte[] iv, byte[] aad) {
         this.iv = iv;
@@ -25,12 +29,12 @@ public class GCM implements EncryptionMode {
 
     @Override
     public byte[] encryptBlock(byte[] block, byte[] key) throws Exception {
-        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
         GCMParameterSpec spec = new GCMParameterSpec(128, iv);
 
-        cipher.init(
+        Cipher cipher = CipherEngine.init(
+            TRANSFORMATION,
             Cipher.ENCRYPT_MODE,
-            new SecretKeySpec(key, "AES"),
+            keySpecs.get(key),
             spec
         );
 
@@ -45,12 +49,12 @@ public class GCM implements EncryptionMode {
 
     @Override
     public byte[] decryptBlock(byte[] block, byte[] key) throws Exception {
-        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
         GCMParameterSpec spec = new GCMParameterSpec(128, iv);
 
-        cipher.init(
+        Cipher cipher = CipherEngine.init(
+            TRANSFORMATION,
             Cipher.DECRYPT_MODE,
-            new SecretKeySpec(key, "AES"),
+            keySpecs.get(key),
             spec
         );
 
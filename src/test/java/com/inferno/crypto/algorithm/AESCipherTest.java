@@ -0,0 +1,184 @@
+package com.inferno.crypto.algorithm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AESCipherTest {
+
+    private static AESCipher cipher(String transformation) {
+        AESCipher cipher = new AESCipher(256);
+        cipher.setKey(new byte[32]);
+        cipher.setPadding(transformation);
+        return cipher;
+    }
+
+    private static byte[] message(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES/CBC/PKCS5Padding", "AES/CTR/NoPadding", "AES/GCM/NoPadding"})
+    void byteArraysRoundTrip(String transformation) throws Exception {
+        AESCipher cipher = cipher(transformation);
+        for (int length : new int[] {0, 1, 16, 1000}) {
+            byte[] data = message(length);
+            byte[] encrypted = cipher.encrypt(data, null);
+            assertArrayEquals(data, cipher.decrypt(encrypted, null));
+            assertFalse(Arrays.equals(encrypted, cipher.encrypt(data, null)), "IV must be fresh");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES/CBC/PKCS5Padding", "AES/CTR/NoPadding", "AES/GCM/NoPadding"})
+    void buffersRoundTrip(String transformation) throws Exception {
+        AESCipher cipher = cipher(transformation);
+        for (boolean direct : new boolean[] {false, true}) {
+            byte[] data = message(1000);
+            ByteBuffer src = allocate(data.length, direct).put(data).flip();
+            ByteBuffer encrypted = allocate(data.length + 64, direct);
+            int n = cipher.encrypt(src, encrypted, null);
+            assertEquals(n, encrypted.position());
+            assertEquals(0, src.remaining());
+            encrypted.flip();
+
+            ByteBuffer decrypted = allocate(n, direct);
+            assertEquals(data.length, cipher.decrypt(encrypted, decrypted, null));
+            assertArrayEquals(data, bytes(decrypted.flip()));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES/CBC/PKCS5Padding", "AES/CTR/NoPadding", "AES/GCM/NoPadding"})
+    void inPlaceRoundTrip(String transformation) throws Exception {
+        AESCipher cipher = cipher(transformation);
+        for (boolean direct : new boolean[] {false, true}) {
+            byte[] data = message(1000);
+            ByteBuffer buffer = allocate(data.length + 64 + 8, direct);
+            buffer.position(8);
+            buffer.put(data).flip().position(8);
+
+            int n = cipher.encryptInPlace(buffer, null);
+            assertEquals(8, buffer.position());
+            assertEquals(8 + n, buffer.limit());
+            assertEquals(data.length, cipher.decryptInPlace(buffer, null));
+            assertEquals(8, buffer.position());
+            assertArrayEquals(data, bytes(buffer));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES/CBC/PKCS5Padding", "AES/CTR/NoPadding", "AES/GCM/NoPadding"})
+    void buffersAndArraysShareTheLayout(String transformation) throws Exception {
+        AESCipher cipher = cipher(transformation);
+        byte[] data = message(100);
+        ByteBuffer encrypted = ByteBuffer.allocate(200);
+        cipher.encrypt(ByteBuffer.wrap(data), encrypted, null);
+        assertArrayEquals(data, cipher.decrypt(bytes(encrypted.flip()), null));
+    }
+
+    @Test
+    void shortDestinationLeavesSourceUntouched() throws Exception {
+        AESCipher cipher = cipher("AES/CBC/PKCS5Padding");
+        ByteBuffer src = ByteBuffer.wrap(message(100));
+        assertThrows(ShortBufferException.class, () -> cipher.encrypt(src, ByteBuffer.allocate(100), null));
+        assertEquals(0, src.position());
+    }
+
+    @Test
+    void tamperedGcmIsRejected() throws Exception {
+        AESCipher cipher = cipher("AES/GCM/NoPadding");
+        byte[] encrypted = cipher.encrypt(message(100), null);
+        encrypted[20] ^= 1;
+        assertThrows(AEADBadTagException.class, () -> cipher.decrypt(encrypted, null));
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean direct) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] out = new byte[buffer.remaining()];
+        buffer.duplicate().get(out);
+        return out;
+    }
+
+    private static List<byte[]> messages(int count) {
+        List<byte[]> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(message(i % 50));
+        }
+        return messages;
+    }
+
+    private static void assertSameRecords(List<byte[]> expected, List<byte[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), "record " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES", "AES/CBC/PKCS5Padding", "AES/CTR/NoPadding", "AES/GCM/NoPadding"})
+    void batchesRoundTrip(String transformation) throws Exception {
+        AESCipher cipher = cipher(transformation);
+        for (int count : new int[] {0, 1, 100}) {
+            List<byte[]> messages = messages(count);
+            List<byte[]> records = cipher.encryptBatch(messages);
+            assertSameRecords(messages, cipher.decryptBatch(records));
+
+            PackedBatch packed = cipher.encryptBatch(PackedBatch.of(messages));
+            assertEquals(count, packed.size());
+            assertSameRecords(messages, cipher.decryptBatch(packed).toList());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES/CBC/PKCS5Padding", "AES/GCM/NoPadding"})
+    void parallelBatchesMatchSequentialOnes(String transformation) throws Exception {
+        AESCipher parallel = cipher(transformation);
+        parallel.setBatchParallelism(4);
+        AESCipher sequential = cipher(transformation);
+        List<byte[]> messages = messages(10_000);
+
+        PackedBatch records = parallel.encryptBatch(PackedBatch.of(messages));
+        assertSameRecords(messages, sequential.decryptBatch(records).toList());
+        assertSameRecords(messages, parallel.decryptBatch(sequential.encryptBatch(messages)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES", "AES/CBC/PKCS5Padding", "AES/GCM/NoPadding"})
+    void batchRecordsDecryptOneAtATime(String transformation) throws Exception {
+        AESCipher cipher = cipher(transformation);
+        List<byte[]> messages = messages(5);
+        List<byte[]> records = cipher.encryptBatch(messages);
+        for (int i = 0; i < messages.size(); i++) {
+            assertArrayEquals(messages.get(i), cipher.decrypt(records.get(i), null));
+        }
+        assertArrayEquals(messages.get(3), cipher.decrypt(cipher.encryptBatch(PackedBatch.of(messages)).get(3), null));
+    }
+
+    @Test
+    void bareAesIsEcbWithoutIv() throws Exception {
+        AESCipher cipher = cipher("AES");
+        assertEquals(0, cipher.getStreamIVLength());
+        byte[] block = new byte[16];
+        assertArrayEquals(cipher.encrypt(block, null), cipher.encrypt(block, null));
+        assertEquals(32, cipher.encrypt(block, null).length);
+    }
+}
@@ -0,0 +1,111 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.engine.BlowfishEngine;
+import com.inferno.crypto.io.stream.CryptoInputStream;
+import com.inferno.crypto.io.stream.CryptoOutputStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class BlowfishCipherTest {
+
+    private static final byte[] KEY = "0123456789abcdef".getBytes();
+
+    private static BlowfishCipher cipher(String transformation, int rounds) {
+        BlowfishCipher cipher = new BlowfishCipher();
+        cipher.setKey(KEY);
+        cipher.setPadding(transformation);
+        cipher.setRounds(rounds);
+        return cipher;
+    }
+
+    private static byte[] message(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @ParameterizedTest
+    @CsvSource({"Blowfish/ECB/PKCS5Padding, 16", "Blowfish/ECB/PKCS5Padding, 32",
+            "Blowfish/CTR/NoPadding, 16", "Blowfish/CTR/NoPadding, 32"})
+    void buffersRoundTrip(String transformation, int rounds) throws Exception {
+        BlowfishCipher cipher = cipher(transformation, rounds);
+        for (int length : new int[] {0, 7, 8, 1001}) {
+            byte[] data = message(length);
+            for (boolean direct : new boolean[] {false, true}) {
+                ByteBuffer src = allocate(length, direct).put(data).flip();
+                ByteBuffer encrypted = allocate(length + 16, direct);
+                int n = cipher.encrypt(src, encrypted, null);
+                assertArrayEquals(data, cipher.decrypt(bytes(encrypted.flip()), null));
+
+                ByteBuffer decrypted = allocate(n, direct);
+                assertEquals(length, cipher.decrypt(encrypted, decrypted, null));
+                assertArrayEquals(data, bytes(decrypted.flip()));
+
+                ByteBuffer buffer = allocate(length + 16 + 3, direct);
+                buffer.position(3);
+                buffer.put(data).flip().position(3);
+                assertEquals(n, cipher.encryptInPlace(buffer, null));
+                assertEquals(length, cipher.decryptInPlace(buffer, null));
+                assertArrayEquals(data, bytes(buffer));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"16", "20"})
+    void ctrStreamsIncrementally(int rounds) throws Exception {
+        BlowfishCipher cipher = cipher("Blowfish/CTR/NoPadding", rounds);
+        assertNotNull(cipher.createStreamCipher(Cipher.ENCRYPT_MODE, new byte[8]));
+        byte[] data = message(50_000);
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (OutputStream out = new CryptoOutputStream(encrypted, cipher, null)) {
+            for (int off = 0; off < data.length; off += 777) {
+                out.write(data, off, Math.min(777, data.length - off));
+            }
+        }
+        assertArrayEquals(data, cipher.decrypt(encrypted.toByteArray(), null));
+        try (InputStream in = new CryptoInputStream(new ByteArrayInputStream(encrypted.toByteArray()), cipher, null)) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0", "5", "64", "1003"})
+    void ctrCipherMatchesJceWithSixteenRounds(int length) throws Exception {
+        byte[] data = message(length);
+        byte[] iv = message(8);
+        SecretKeySpec key = new SecretKeySpec(KEY, "Blowfish");
+        Cipher jce = Cipher.getInstance("Blowfish/CTR/NoPadding");
+        jce.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        Cipher own = BlowfishEngine.ctrCipher(16);
+        own.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        byte[] out = new byte[length];
+        int n = own.update(data, 0, length / 2, out, 0);
+        own.doFinal(data, length / 2, length - length / 2, out, n);
+        assertArrayEquals(jce.doFinal(data), out);
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean direct) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] out = new byte[buffer.remaining()];
+        buffer.duplicate().get(out);
+        return out;
+    }
+}
@@ -0,0 +1,179 @@
+package com.inferno.crypto.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClassicalCipherTest {
+
+    private static List<ClassicalCipher> ciphers() {
+        TranspositionCipher blocked = new TranspositionCipher(5);
+        blocked.setBlockSize(1000);
+        return List.of(
+                new CaesarCipher(3),
+                new VigenereCipher("LEMON"),
+                new SubstitutionCipher(Map.of('a', 'q', 'q', 'z', 'z', 'a')),
+                new TranspositionCipher(4),
+                blocked,
+                new XORCipher(new byte[] {1, 2, 3}));
+    }
+
+    private static byte[] message(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static final String SENTENCE = "Attack at Dawn! Meet @ 7:45, gate #3 ~ bring {maps}.";
+
+    private static String printable() {
+        StringBuilder text = new StringBuilder();
+        for (char c = 32; c < 127; c++) {
+            text.append(c);
+        }
+        return text.toString();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void assertKnownAnswer(ClassicalCipher cipher, String plain, byte[] expected) throws Exception {
+        assertArrayEquals(expected, cipher.encrypt(ascii(plain), null), cipher.getAlgorithmName());
+        assertArrayEquals(ascii(plain), cipher.decrypt(expected, null), cipher.getAlgorithmName());
+    }
+
+    /**
+     * Expected outputs below were produced by the original String-based
+     * implementations on the same inputs.
+     */
+    @Test
+    void caesarMatchesTheOriginalOnPrintableAscii() throws Exception {
+        assertKnownAnswer(new CaesarCipher(3), printable(),
+                ascii("#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~ !\""));
+        assertKnownAnswer(new CaesarCipher(3), SENTENCE,
+                ascii("Dwwdfn#dw#Gdzq$#Phhw#C#:=78/#jdwh#&6#\"#eulqj#~pdsv!1"));
+        assertKnownAnswer(new CaesarCipher(25), printable(),
+                ascii("9:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~ !\"#$%&'()*+,-./012345678"));
+        assertKnownAnswer(new CaesarCipher(25), SENTENCE,
+                ascii("Z..z|%9z.9]z1(:9f~~.9Y9PSMNE9!z.~9<L989{,#(!95'z*-7G"));
+        assertKnownAnswer(new CaesarCipher(29), SENTENCE,
+                ascii("Dwwdfn#dw#Gdzq$#Phhw#C#:=78/#jdwh#&6#\"#eulqj#~pdsv!1"));
+    }
+
+    /**
+     * The original added key characters modulo 256 into a String and encoded
+     * it with the platform charset, so sums above 127 became two UTF-8 bytes.
+     * The byte engine keeps the same sums as single bytes.
+     */
+    @Test
+    void vigenereMatchesTheOriginalShiftsWithKeyWraparound() throws Exception {
+        String[][] vectors = {
+                {"LEMON", "8db9c1b0b1b765aec36e90a6c4bd6f6c92b2b4c26c856d8688807a796fb5adb9b26f717f65cb6fb0beaebbb66ec7b2aebfc1c973",
+                        "c28dc2b9c381c2b0c2b1c2b765c2aec3836ec290c2a6c384c2bd6f6cc292c2b2c2b4c3826cc2856dc286c288c2807a796f"
+                                + "c2b5c2adc2b9c2b26f717f65c38b6fc2b0c2bec2aec2bbc2b66ec387c2b2c2aec2bfc381c38973"},
+                {"a", "a2d5d5c2c4cc81c2d581a5c2d8cf8281aec6c6d581a181989b95968d81c8c2d5c681849481df81c3d3cacfc881dccec2d1d4de8f",
+                        "c2a2c395c395c382c384c38cc281c382c395c281c2a5c382c398c38fc282c281c2aec386c386c395c281c2a1c281c298c29b"
+                                + "c295c296c28dc281c388c382c395c386c281c284c294c281c39fc281c383c393c38ac38fc388c281c39cc38ec382c391c394c39ec28f"}
+        };
+        for (String[] vector : vectors) {
+            byte[] expected = HexFormat.of().parseHex(vector[1]);
+            assertKnownAnswer(new VigenereCipher(vector[0]), SENTENCE, expected);
+            byte[] original = new String(expected, StandardCharsets.ISO_8859_1).getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(HexFormat.of().parseHex(vector[2]), original, vector[0]);
+        }
+    }
+
+    @Test
+    void substitutionMatchesTheOriginalInBothDirections() throws Exception {
+        String from = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        String to = "qwertyuiopasdfghjklzxcvbnmQWERTYUIOPASDFGHJKLZXCVBNM9876543210";
+        Map<Character, Character> map = new HashMap<>();
+        for (int i = 0; i < from.length(); i++) {
+            map.put(from.charAt(i), to.charAt(i));
+        }
+        SubstitutionCipher cipher = new SubstitutionCipher(map);
+        assertKnownAnswer(cipher, SENTENCE, ascii("Qzzqea qz Rqvf! Dttz @ 2:54, uqzt #6 ~ wkofu {dqhl}."));
+        assertArrayEquals(ascii("Keekvr ke Mkby! Zcce @ 2:54, okec #6 ~ xdhyo {zkjl}."),
+                cipher.decrypt(ascii(SENTENCE), null));
+        assertArrayEquals(ascii(printable()), cipher.encrypt(cipher.decrypt(ascii(printable()), null), null));
+    }
+
+    @Test
+    void xorMatchesTheOriginalForKeysAroundTheWordSize() throws Exception {
+        assertKnownAnswer(new XORCipher(ascii("key")), SENTENCE, HexFormat.of().parseHex(
+                "2a110d0a06124b040d4b21181c0b584b281c0e11592b454e51514c47451e0a111c4b464a4b1b590917100502591008181b160445"));
+        assertKnownAnswer(new XORCipher(ascii("0123456789abc")), SENTENCE, HexFormat.of().parseHex(
+                "71454652575e16564c192503145e10127e515042177819565857051d1254554153171b0a411c4352435b5d53154d5a5949121f4d"));
+    }
+
+    @Test
+    void buffersMatchByteArrays() throws Exception {
+        byte[] data = message(20_000);
+        for (ClassicalCipher cipher : ciphers()) {
+            byte[] expected = cipher.encrypt(data, null);
+            for (boolean direct : new boolean[] {false, true}) {
+                ByteBuffer src = allocate(data.length, direct).put(data).flip();
+                ByteBuffer dst = allocate(data.length, direct);
+                assertEquals(data.length, cipher.encrypt(src, dst, null));
+                assertArrayEquals(expected, bytes(dst.flip()), cipher.getAlgorithmName());
+
+                ByteBuffer buffer = allocate(data.length, direct).put(expected).flip();
+                assertEquals(data.length, cipher.decryptInPlace(buffer, null));
+                assertArrayEquals(data, bytes(buffer), cipher.getAlgorithmName());
+            }
+        }
+    }
+
+    @Test
+    void streamsMatchByteArrays() throws Exception {
+        byte[] data = message(200_000);
+        for (ClassicalCipher cipher : ciphers()) {
+            if (cipher instanceof TranspositionCipher && ((TranspositionCipher) cipher).getBlockSize() == 0) {
+                continue;
+            }
+            ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+            cipher.encrypt(new ByteArrayInputStream(data), encrypted);
+            assertArrayEquals(cipher.encrypt(data, null), encrypted.toByteArray(), cipher.getAlgorithmName());
+            ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+            cipher.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted);
+            assertArrayEquals(data, decrypted.toByteArray(), cipher.getAlgorithmName());
+        }
+    }
+
+    @Test
+    void wholeInputTranspositionRefusesStreams() {
+        TranspositionCipher cipher = new TranspositionCipher(4);
+        assertThrows(IllegalStateException.class,
+                () -> cipher.encrypt(new ByteArrayInputStream(new byte[10]), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void longTranspositionsRoundTripPastTheFenceCache() throws Exception {
+        TranspositionCipher cipher = new TranspositionCipher(7);
+        byte[] data = message(3 << 20);
+        assertArrayEquals(data, cipher.decrypt(cipher.encrypt(data, null), null));
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean direct) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] out = new byte[buffer.remaining()];
+        buffer.duplicate().get(out);
+        return out;
+    }
+}
@@ -0,0 +1,135 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.exception.CryptoException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImageCipherTest {
+
+    private static final String PASSWORD = "correct horse";
+
+    @TempDir
+    Path dir;
+
+    private static BufferedImage image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width * 31L + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    @Test
+    void keystreamFormatRoundTripsThroughPngAndTiff() throws Exception {
+        BufferedImage plain = image(97, 61);
+        for (int tileSize : new int[] {0, 16}) {
+            ImageCipher cipher = new ImageCipher();
+            cipher.setTileSize(tileSize);
+            BufferedImage encrypted = cipher.encrypt(plain, PASSWORD);
+            assertFalse(Arrays.equals(pixels(plain), pixels(encrypted)));
+            for (String format : new String[] {"png", "tif"}) {
+                File file = dir.resolve("encrypted-" + tileSize + "." + format).toFile();
+                ImageCipher.writeImage(encrypted, format, file);
+                BufferedImage decrypted = new ImageCipher().decrypt(ImageCipher.readImage(file), PASSWORD);
+                assertArrayEquals(pixels(plain), pixels(decrypted), format + ", tile " + tileSize);
+            }
+        }
+    }
+
+    @Test
+    void byteArraysRoundTrip() throws Exception {
+        BufferedImage plain = image(40, 30);
+        File file = dir.resolve("plain.png").toFile();
+        ImageCipher.writeImage(plain, "png", file);
+        ImageCipher cipher = new ImageCipher();
+        byte[] encrypted = cipher.encrypt(Files.readAllBytes(file.toPath()), PASSWORD);
+        File out = dir.resolve("decrypted.png").toFile();
+        Files.write(out.toPath(), cipher.decrypt(encrypted, PASSWORD));
+        assertArrayEquals(pixels(plain), pixels(ImageCipher.readImage(out)));
+    }
+
+    @Test
+    void formatsWithoutRoomForTheHeaderAreRefused() throws Exception {
+        BufferedImage encrypted = new ImageCipher().encrypt(image(20, 20), PASSWORD);
+        for (String format : new String[] {"bmp", "gif"}) {
+            File file = dir.resolve("encrypted." + format).toFile();
+            assertThrows(IOException.class, () -> ImageCipher.writeImage(encrypted, format, file), format);
+            assertFalse(file.exists(), format);
+        }
+    }
+
+    @Test
+    void headerlessImageDecryptsAsLegacyUnlessFormatTwoIsSelected() throws Exception {
+        BufferedImage plain = image(33, 17);
+        ImageCipher legacy = new ImageCipher();
+        legacy.setFormatVersion(ImageCipher.FORMAT_LEGACY);
+        BufferedImage encrypted = legacy.encrypt(plain, PASSWORD);
+
+        assertArrayEquals(pixels(plain), pixels(new ImageCipher().decrypt(encrypted, PASSWORD)));
+        assertArrayEquals(pixels(plain), pixels(legacy.decrypt(encrypted, PASSWORD)));
+
+        ImageCipher strict = new ImageCipher();
+        strict.setFormatVersion(ImageCipher.FORMAT_KEYSTREAM);
+        assertThrows(CryptoException.class, () -> strict.decrypt(encrypted, PASSWORD));
+    }
+
+    @Test
+    void derivedKeystreamMatchesPassword() throws Exception {
+        BufferedImage plain = image(50, 50);
+        ImageCipher cipher = new ImageCipher();
+        ImageKeystream keystream = ImageKeystream.create(PASSWORD);
+        BufferedImage encrypted = cipher.encrypt(plain, keystream);
+
+        assertArrayEquals(pixels(plain), pixels(cipher.decrypt(encrypted, PASSWORD)));
+        assertArrayEquals(pixels(plain), pixels(cipher.decrypt(encrypted, keystream)));
+        assertThrows(CryptoException.class,
+                () -> cipher.decrypt(encrypted, ImageKeystream.create(PASSWORD)));
+    }
+
+    @Test
+    void tiledFilesRoundTrip() throws Exception {
+        BufferedImage plain = image(300, 170);
+        File input = dir.resolve("plain.png").toFile();
+        File encrypted = dir.resolve("encrypted.tif").toFile();
+        File decrypted = dir.resolve("decrypted.tif").toFile();
+        ImageCipher.writeImage(plain, "png", input);
+
+        ImageCipher cipher = new ImageCipher();
+        cipher.setTileSize(128);
+        cipher.encryptTiled(input, encrypted, PASSWORD);
+        cipher.decryptTiled(encrypted, decrypted, PASSWORD);
+        assertArrayEquals(pixels(plain), pixels(ImageCipher.readImage(decrypted)));
+    }
+
+    @Test
+    void oversizedTilesAreRejected() throws Exception {
+        int tooLarge = ImageKeystream.MAX_TILE_SIZE + 1;
+        assertThrows(IllegalArgumentException.class, () -> new ImageCipher().setTileSize(tooLarge));
+        assertThrows(CryptoException.class, () -> ImageKeystream.create(PASSWORD, tooLarge));
+
+        String header = ImageKeystream.create(PASSWORD, 64).header();
+        String forged = header.substring(0, header.lastIndexOf(':') + 1) + Integer.MAX_VALUE;
+        assertThrows(CryptoException.class, () -> ImageKeystream.fromHeader(PASSWORD, forged));
+        assertThrows(CryptoException.class,
+                () -> ImageKeystream.fromHeader(PASSWORD, header.substring(0, header.lastIndexOf(':') + 1) + "-1"));
+    }
+}
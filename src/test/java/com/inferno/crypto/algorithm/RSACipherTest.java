@@ -0,0 +1,99 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RSACipherTest {
+
+    private static KeyPair alice;
+    private static KeyPair bob;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        alice = new RSACipher(2048).generateKeyPair(2048);
+        bob = new RSACipher(2048).generateKeyPair(2048);
+    }
+
+    private static RSACipher envelope() {
+        RSACipher cipher = new RSACipher(2048);
+        cipher.setEnvelopeMode(true);
+        cipher.setSegmentSize(1024);
+        return cipher;
+    }
+
+    private static byte[] message(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    void envelopesRoundTrip() throws Exception {
+        RSACipher cipher = envelope();
+        for (int length : new int[] {0, 1, 245, 1024, 10_000}) {
+            byte[] data = message(length);
+            assertArrayEquals(data, cipher.decrypt(cipher.encrypt(data, alice.getPublic()), alice.getPrivate()));
+        }
+    }
+
+    @Test
+    void wrongKeyTamperingAndTruncationAreRejected() throws Exception {
+        RSACipher cipher = envelope();
+        byte[] sealed = cipher.encrypt(message(5000), alice.getPublic());
+
+        DecryptionFailedException wrongKey = assertThrows(DecryptionFailedException.class,
+                () -> cipher.decrypt(sealed, bob.getPrivate()));
+        assertEquals(DecryptionFailureReason.INCORRECT_KEY, wrongKey.getFailureReason());
+
+        byte[] tampered = sealed.clone();
+        tampered[tampered.length - 100] ^= 1;
+        assertThrows(DecryptionFailedException.class, () -> cipher.decrypt(tampered, alice.getPrivate()));
+
+        byte[] truncated = Arrays.copyOf(sealed, sealed.length - 1024 - 16);
+        assertThrows(DecryptionFailedException.class, () -> cipher.decrypt(truncated, alice.getPrivate()));
+
+        DecryptionFailedException header = assertThrows(DecryptionFailedException.class,
+                () -> cipher.decrypt(Arrays.copyOf(sealed, 8), alice.getPrivate()));
+        assertEquals(DecryptionFailureReason.SIZE_ERROR, header.getFailureReason());
+
+        byte[] magic = sealed.clone();
+        magic[0] ^= 1;
+        DecryptionFailedException format = assertThrows(DecryptionFailedException.class,
+                () -> cipher.decrypt(magic, alice.getPrivate()));
+        assertEquals(DecryptionFailureReason.FORMAT_ERROR, format.getFailureReason());
+    }
+
+    @Test
+    void singleBlockModeFollowsKeyChanges() throws Exception {
+        RSACipher cipher = new RSACipher(2048);
+        byte[] data = message(100);
+        for (int i = 0; i < 3; i++) {
+            for (KeyPair pair : new KeyPair[] {alice, bob}) {
+                assertArrayEquals(data, cipher.decrypt(cipher.encrypt(data, pair.getPublic()), pair.getPrivate()));
+            }
+        }
+        byte[] forAlice = cipher.encrypt(data, alice.getPublic());
+        assertThrows(Exception.class, () -> cipher.decrypt(forAlice, bob.getPrivate()));
+    }
+
+    @Test
+    void failedCallDoesNotPoisonTheThreadsEngine() throws Exception {
+        RSACipher cipher = new RSACipher(2048);
+        assertThrows(Exception.class, () -> cipher.encrypt(message(300), alice.getPublic()));
+        byte[] data = message(10);
+        assertArrayEquals(data, cipher.decrypt(cipher.encrypt(data, alice.getPublic()), alice.getPrivate()));
+
+        assertThrows(Exception.class, () -> cipher.decrypt(message(300), alice.getPrivate()));
+        assertArrayEquals(data, cipher.decrypt(cipher.encrypt(data, alice.getPublic()), alice.getPrivate()));
+    }
+}
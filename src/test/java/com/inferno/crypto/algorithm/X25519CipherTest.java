@@ -0,0 +1,75 @@
+package com.inferno.crypto.algorithm;
+
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class X25519CipherTest {
+
+    private static byte[] message(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    void roundTripsWithAndWithoutThePublicKeyAtHand() throws Exception {
+        X25519Cipher sender = new X25519Cipher();
+        sender.setSegmentSize(1024);
+        KeyPair recipient = new X25519Cipher().generateKeyPair();
+        X25519Cipher owner = new X25519Cipher();
+        KeyPair own = owner.generateKeyPair();
+
+        for (int length : new int[] {0, 1, 1024, 5000}) {
+            byte[] data = message(length);
+            assertArrayEquals(data, new X25519Cipher().decrypt(
+                    sender.encrypt(data, recipient.getPublic()), recipient.getPrivate()));
+            assertArrayEquals(data, owner.decrypt(sender.encrypt(data, own.getPublic()), own.getPrivate()));
+        }
+    }
+
+    @Test
+    void everyMessageUsesAFreshEphemeralKey() throws Exception {
+        X25519Cipher cipher = new X25519Cipher();
+        KeyPair recipient = cipher.generateKeyPair();
+        byte[] data = message(64);
+        assertFalse(Arrays.equals(cipher.encrypt(data, recipient.getPublic()), cipher.encrypt(data, recipient.getPublic())));
+    }
+
+    @Test
+    void wrongKeyTamperingAndBadHeadersAreRejected() throws Exception {
+        X25519Cipher cipher = new X25519Cipher();
+        KeyPair recipient = cipher.generateKeyPair();
+        KeyPair other = new X25519Cipher().generateKeyPair();
+        byte[] sealed = cipher.encrypt(message(3000), recipient.getPublic());
+
+        assertThrows(DecryptionFailedException.class, () -> new X25519Cipher().decrypt(sealed, other.getPrivate()));
+
+        byte[] body = sealed.clone();
+        body[body.length - 20] ^= 1;
+        assertThrows(DecryptionFailedException.class, () -> cipher.decrypt(body, recipient.getPrivate()));
+
+        byte[] ephemeral = sealed.clone();
+        ephemeral[10] ^= 1;
+        assertThrows(DecryptionFailedException.class, () -> cipher.decrypt(ephemeral, recipient.getPrivate()));
+
+        DecryptionFailedException truncated = assertThrows(DecryptionFailedException.class,
+                () -> cipher.decrypt(Arrays.copyOf(sealed, 20), recipient.getPrivate()));
+        assertEquals(DecryptionFailureReason.SIZE_ERROR, truncated.getFailureReason());
+
+        byte[] magic = sealed.clone();
+        magic[0] ^= 1;
+        DecryptionFailedException format = assertThrows(DecryptionFailedException.class,
+                () -> cipher.decrypt(magic, recipient.getPrivate()));
+        assertEquals(DecryptionFailureReason.FORMAT_ERROR, format.getFailureReason());
+    }
+}
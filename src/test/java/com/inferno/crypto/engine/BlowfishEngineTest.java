@@ -0,0 +1,92 @@
+package com.inferno.crypto.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlowfishEngineTest {
+
+    /**
+     * Eric Young's published Blowfish ECB vectors: key, plaintext, ciphertext.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "0000000000000000, 0000000000000000, 4EF997456198DD78",
+            "FFFFFFFFFFFFFFFF, FFFFFFFFFFFFFFFF, 51866FD5B85ECB8A",
+            "3000000000000000, 1000000000000001, 7D856F9A613063F2",
+            "1111111111111111, 1111111111111111, 2466DD878B963C9D",
+            "0123456789ABCDEF, 1111111111111111, 61F9C3802281B096",
+            "FEDCBA9876543210, 0123456789ABCDEF, 0ACEAB0FC6A0A28D",
+            "7CA110454A1A6E57, 01A1D6D039776742, 59C68245EB05282B"
+    })
+    void matchesPublishedVectors(String key, String plaintext, String ciphertext) throws Exception {
+        BlowfishEngine engine = BlowfishEngine.forKey(HexFormat.of().parseHex(key), BlowfishEngine.DEFAULT_ROUNDS);
+        long plain = Long.parseUnsignedLong(plaintext, 16);
+        long sealed = Long.parseUnsignedLong(ciphertext, 16);
+        assertEquals(sealed, engine.encryptBlock(plain));
+        assertEquals(plain, engine.decryptBlock(sealed));
+    }
+
+    @Test
+    void ecbMatchesJce() throws Exception {
+        Random random = new Random(7);
+        for (int keyLength : new int[] {4, 16, 56}) {
+            byte[] key = new byte[keyLength];
+            random.nextBytes(key);
+            Cipher jce = Cipher.getInstance("Blowfish/ECB/PKCS5Padding");
+            jce.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "Blowfish"));
+            BlowfishEngine engine = BlowfishEngine.forKey(key, BlowfishEngine.DEFAULT_ROUNDS);
+            for (int length : new int[] {0, 1, 8, 15, 1000}) {
+                byte[] data = new byte[length];
+                random.nextBytes(data);
+                byte[] expected = jce.doFinal(data);
+                assertArrayEquals(expected, engine.encryptEcb(data), keyLength + "/" + length);
+                assertArrayEquals(data, engine.decryptEcb(expected), keyLength + "/" + length);
+            }
+        }
+    }
+
+    @Test
+    void ctrMatchesJce() throws Exception {
+        byte[] key = "a sixteen byte k".getBytes();
+        byte[] iv = {1, 2, 3, 4, 5, 6, 7, (byte) 0xff};
+        byte[] data = new byte[777];
+        new Random(3).nextBytes(data);
+        Cipher jce = Cipher.getInstance("Blowfish/CTR/NoPadding");
+        jce.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "Blowfish"), new IvParameterSpec(iv));
+        assertArrayEquals(jce.doFinal(data),
+                BlowfishEngine.forKey(key, BlowfishEngine.DEFAULT_ROUNDS).ctr(iv).update(data));
+    }
+
+    @Test
+    void roundCountChangesTheCipher() throws Exception {
+        byte[] key = new byte[16];
+        byte[] data = new byte[64];
+        BlowfishEngine twenty = BlowfishEngine.forKey(key, 20);
+        byte[] encrypted = twenty.encryptEcb(data);
+        assertEquals(20, twenty.getRounds());
+        assertArrayEquals(data, twenty.decryptEcb(encrypted));
+        assertFalse(Arrays.equals(BlowfishEngine.forKey(key, 16).encryptEcb(data), encrypted));
+    }
+
+    @Test
+    void rejectsBadKeysAndRounds() {
+        assertThrows(InvalidKeyException.class, () -> BlowfishEngine.forKey(new byte[3], 16));
+        assertThrows(InvalidKeyException.class, () -> BlowfishEngine.forKey(new byte[57], 16));
+        assertThrows(IllegalArgumentException.class, () -> BlowfishEngine.forKey(new byte[16], 15));
+        assertThrows(IllegalArgumentException.class, () -> BlowfishEngine.forKey(new byte[16], BlowfishEngine.MAX_ROUNDS + 2));
+    }
+}
@@ -0,0 +1,81 @@
+package com.inferno.crypto.engine;
+
+import com.inferno.crypto.algorithm.AESCipher;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CounterNonceGeneratorTest {
+
+    @Test
+    void noncesAreFixedFieldThenCounter() {
+        CounterNonceGenerator generator = new CounterNonceGenerator(0x01020304, 100);
+        assertArrayEquals(HexFormat.of().parseHex("010203040000000000000000"), generator.next());
+        byte[] batch = new byte[3 * CounterNonceGenerator.NONCE_SIZE];
+        generator.next(batch, 0, 3);
+        assertArrayEquals(HexFormat.of().parseHex("010203040000000000000003"),
+                Arrays.copyOfRange(batch, 24, 36));
+        assertEquals(4, generator.used());
+        assertEquals(96, generator.remaining());
+    }
+
+    @Test
+    void exhaustionFailsHard() {
+        CounterNonceGenerator generator = new CounterNonceGenerator(0, 5);
+        generator.next(new byte[4 * CounterNonceGenerator.NONCE_SIZE], 0, 4);
+        assertThrows(IllegalStateException.class,
+                () -> generator.next(new byte[2 * CounterNonceGenerator.NONCE_SIZE], 0, 2));
+        generator.next();
+        assertTrue(generator.isExhausted());
+        assertThrows(IllegalStateException.class, generator::next);
+    }
+
+    @Test
+    void limitStaysBelowTwoToTheThirtyTwo() {
+        assertEquals((1L << 32) - 1, new CounterNonceGenerator().remaining());
+        assertThrows(IllegalArgumentException.class, () -> new CounterNonceGenerator(0, 1L << 32));
+        assertThrows(IllegalArgumentException.class, () -> new CounterNonceGenerator(0, 0));
+    }
+
+    @Test
+    void equalKeysShareOneCounter() {
+        byte[] raw = RandomService.bytes(32);
+        CounterNonceGenerator first = RandomService.nonces(new SecretKeySpec(raw, "AES"));
+        assertSame(first, RandomService.nonces(new SecretKeySpec(raw.clone(), "AES")));
+        assertNotSame(first, RandomService.nonces(new SecretKeySpec(RandomService.bytes(32), "AES")));
+    }
+
+    @Test
+    void aesCounterNoncesAdvanceAndDecrypt() throws Exception {
+        byte[] raw = RandomService.bytes(32);
+        AESCipher cipher = new AESCipher(256);
+        cipher.setKey(raw);
+        cipher.setPadding("AES/GCM/NoPadding");
+        cipher.setCounterNonces(true);
+        CounterNonceGenerator nonces = RandomService.nonces(new SecretKeySpec(raw, "AES"));
+
+        byte[] data = "counter nonce".getBytes();
+        byte[] sealed = cipher.encrypt(data, null);
+        List<byte[]> batch = cipher.encryptBatch(List.of(data, data, data));
+        ByteBuffer dst = ByteBuffer.allocate(64);
+        cipher.encrypt(ByteBuffer.wrap(data), dst, null);
+        assertEquals(5, nonces.used());
+
+        assertArrayEquals(HexFormat.of().parseHex("000000000000000000000000"), Arrays.copyOf(sealed, 12));
+        assertArrayEquals(HexFormat.of().parseHex("000000000000000000000003"), Arrays.copyOf(batch.get(2), 12));
+        assertArrayEquals(data, cipher.decrypt(sealed, null));
+        assertEquals(List.of("counter nonce", "counter nonce", "counter nonce"),
+                cipher.decryptBatch(batch).stream().map(String::new).toList());
+    }
+}
@@ -0,0 +1,66 @@
+package com.inferno.crypto.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The HMAC-SHA256 test cases of RFC 5869, appendix A.1 to A.3.
+ */
+class HkdfTest {
+
+    private static byte[] hex(String s) {
+        return HexFormat.of().parseHex(s);
+    }
+
+    private static byte[] range(int from, int to) {
+        byte[] b = new byte[to - from];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) (from + i);
+        }
+        return b;
+    }
+
+    private static void check(byte[] ikm, byte[] salt, byte[] info, String prk, String okm) throws Exception {
+        byte[] expected = hex(okm);
+        assertArrayEquals(hex(prk), Hkdf.extract(salt, ikm));
+        assertArrayEquals(expected, Hkdf.expand(hex(prk), info, expected.length));
+        assertArrayEquals(expected, Hkdf.derive(salt, ikm, info, expected.length));
+    }
+
+    @Test
+    void basicCase() throws Exception {
+        check(hex("0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b"),
+                hex("000102030405060708090a0b0c"),
+                hex("f0f1f2f3f4f5f6f7f8f9"),
+                "077709362c2e32df0ddc3f0dc47bba6390b6c73bb50f9c3122ec844ad7c2b3e5",
+                "3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf34007208d5b887185865");
+    }
+
+    @Test
+    void longerInputsAndOutput() throws Exception {
+        check(range(0x00, 0x50), range(0x60, 0xb0), range(0xb0, 0x100),
+                "06a6b88c5853361a06104c9ceb35b45cef760014904671014a193f40c15fc244",
+                "b11e398dc80327a1c8e7f78c596a49344f012eda2d4efad8a050cc4c19afa97c"
+                        + "59045a99cac7827271cb41c65e590e09da3275600c2f09b8367793a9aca3db71"
+                        + "cc30c58179ec3e87c14c01d5c1f3434f1d87");
+    }
+
+    @Test
+    void emptySaltAndInfo() throws Exception {
+        check(hex("0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b"), new byte[0], new byte[0],
+                "19ef24a32c717b167f33a91d6f648bdf96596776afdb6377ac434c1c293ccb04",
+                "8da4e775a563c18f715f802a063c5a31b8a11f5c5ee1879ec3454e5f3c738d2d9d201395faa4b61a96c8");
+        assertArrayEquals(Hkdf.extract(null, new byte[22]), Hkdf.extract(new byte[0], new byte[22]));
+    }
+
+    @Test
+    void outputLengthIsBounded() {
+        byte[] prk = new byte[Hkdf.HASH_LENGTH];
+        assertThrows(IllegalArgumentException.class, () -> Hkdf.expand(prk, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> Hkdf.expand(prk, null, 255 * Hkdf.HASH_LENGTH + 1));
+    }
+}
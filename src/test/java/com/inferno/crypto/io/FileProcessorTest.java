@@ -0,0 +1,68 @@
+package com.inferno.crypto.io;
+
+import com.inferno.crypto.algorithm.AESCipher;
+import com.inferno.crypto.io.file.BinaryFileHandler;
+import com.inferno.crypto.io.stream.SegmentedGcm;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileProcessorTest {
+
+    private static final int SEGMENT = 1024;
+    private static final Key KEY = new SecretKeySpec(new byte[32], "AES");
+
+    @TempDir
+    Path dir;
+
+    private byte[] data;
+
+    private static AESCipher cipher(String transformation) {
+        AESCipher cipher = new AESCipher(256);
+        cipher.setKey(new byte[32]);
+        cipher.setPadding(transformation);
+        return cipher;
+    }
+
+    private File plainFile(int length) throws Exception {
+        data = new byte[length];
+        new Random(length).nextBytes(data);
+        return Files.write(dir.resolve("plain"), data).toFile();
+    }
+
+    @Test
+    void gcmCipherUsesTheSegmentedFormat() throws Exception {
+        FileProcessor processor = new FileProcessor(new BinaryFileHandler(4096), cipher("AES/GCM/NoPadding"), KEY);
+        processor.setSegmentSize(SEGMENT);
+        File encrypted = dir.resolve("encrypted").toFile();
+        processor.processFile(plainFile(5 * SEGMENT + 7), encrypted, true);
+
+        assertEquals(SegmentedGcm.ciphertextLength(data.length, SEGMENT), encrypted.length());
+        assertArrayEquals(Arrays.copyOfRange(data, 2000, 2100), processor.decryptRange(encrypted.toPath(), 2000, 100));
+        File decrypted = dir.resolve("decrypted").toFile();
+        processor.processFile(encrypted, decrypted, false);
+        assertArrayEquals(data, Files.readAllBytes(decrypted.toPath()));
+    }
+
+    @Test
+    void otherAesModesUseTheConfiguredCipher() throws Exception {
+        AESCipher cbc = cipher("AES/CBC/PKCS5Padding");
+        FileProcessor processor = new FileProcessor(new BinaryFileHandler(4096), cbc, KEY);
+        File encrypted = dir.resolve("encrypted").toFile();
+        processor.processFile(plainFile(3000), encrypted, true);
+
+        assertArrayEquals(data, cbc.decrypt(Files.readAllBytes(encrypted.toPath()), null));
+        assertThrows(IllegalStateException.class, () -> processor.decryptRange(encrypted.toPath(), 0, 10));
+    }
+}
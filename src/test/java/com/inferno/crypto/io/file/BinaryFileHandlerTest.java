@@ -0,0 +1,102 @@
+package com.inferno.crypto.io.file;
+
+import com.inferno.crypto.algorithm.AESCipher;
+import com.inferno.crypto.exception.DecryptionFailedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryFileHandlerTest {
+
+    private static final int WINDOW = 1000;
+
+    @TempDir
+    Path dir;
+
+    private static AESCipher cipher(String transformation) {
+        AESCipher cipher = new AESCipher(256);
+        cipher.setKey(new byte[32]);
+        cipher.setPadding(transformation);
+        return cipher;
+    }
+
+    private static BinaryFileHandler handler() {
+        BinaryFileHandler handler = new BinaryFileHandler(4096);
+        handler.setMapWindow(WINDOW);
+        return handler;
+    }
+
+    private File plainFile(int length) throws Exception {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return Files.write(dir.resolve("plain-" + length), data).toFile();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AES/CBC/PKCS5Padding", "AES/CTR/NoPadding", "AES/GCM/NoPadding"})
+    void mappedRoundTrips(String transformation) throws Exception {
+        AESCipher cipher = cipher(transformation);
+        BinaryFileHandler handler = handler();
+        for (int length : new int[] {0, 1, WINDOW - 1, WINDOW, 7 * WINDOW + 13}) {
+            File plain = plainFile(length);
+            File encrypted = dir.resolve("enc-" + length).toFile();
+            File decrypted = dir.resolve("dec-" + length).toFile();
+            assertEquals(length, handler.encryptMapped(plain, encrypted, cipher, null));
+            assertEquals(length, handler.decryptMapped(encrypted, decrypted, cipher, null));
+            assertArrayEquals(Files.readAllBytes(plain.toPath()), Files.readAllBytes(decrypted.toPath()));
+        }
+    }
+
+    @Test
+    void outputBufferGrowsForLargeOverhead() throws Exception {
+        AESCipher cipher = cipher("AES/GCM/NoPadding");
+        BinaryFileHandler handler = handler();
+        handler.setMapWindow(1);
+        File plain = plainFile(3000);
+        File encrypted = dir.resolve("enc").toFile();
+        File decrypted = dir.resolve("dec").toFile();
+        handler.encryptMapped(plain, encrypted, cipher, null);
+        handler.decryptMapped(encrypted, decrypted, cipher, null);
+        assertArrayEquals(Files.readAllBytes(plain.toPath()), Files.readAllBytes(decrypted.toPath()));
+    }
+
+    @Test
+    void truncatedFilesAreRejected() throws Exception {
+        AESCipher cipher = cipher("AES/GCM/NoPadding");
+        BinaryFileHandler handler = handler();
+        File encrypted = dir.resolve("enc").toFile();
+        handler.encryptMapped(plainFile(3 * WINDOW), encrypted, cipher, null);
+        byte[] sealed = Files.readAllBytes(encrypted.toPath());
+        int record = 4 + 12 + WINDOW + 16;
+
+        for (int length : new int[] {5, 8 + 2, 8 + record, 8 + 2 * record - 1}) {
+            File cut = Files.write(dir.resolve("cut-" + length), Arrays.copyOf(sealed, length)).toFile();
+            assertThrows(DecryptionFailedException.class,
+                    () -> handler.decryptMapped(cut, dir.resolve("out").toFile(), cipher, null), "length " + length);
+        }
+    }
+
+    @Test
+    void tamperedRecordIsRejected() throws Exception {
+        AESCipher cipher = cipher("AES/GCM/NoPadding");
+        BinaryFileHandler handler = handler();
+        File encrypted = dir.resolve("enc").toFile();
+        handler.encryptMapped(plainFile(2 * WINDOW), encrypted, cipher, null);
+        byte[] sealed = Files.readAllBytes(encrypted.toPath());
+        sealed[sealed.length - 30] ^= 1;
+        File tampered = Files.write(dir.resolve("tampered"), sealed).toFile();
+        assertThrows(Exception.class,
+                () -> handler.decryptMapped(tampered, dir.resolve("out").toFile(), cipher, null));
+    }
+}
@@ -0,0 +1,124 @@
+package com.inferno.crypto.io.format;
+
+import com.inferno.crypto.algorithm.ImageCipher;
+import com.inferno.crypto.exception.CryptoException;
+import com.inferno.crypto.exception.UnsupportedFileException;
+import com.inferno.crypto.model.CryptoResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageEncryptorTest {
+
+    private static final String PASSWORD = "image-password";
+
+    @TempDir
+    Path dir;
+
+    private File writeInput(String format) throws Exception {
+        BufferedImage image = new BufferedImage(48, 36, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(48);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        File file = dir.resolve("input." + format).toFile();
+        ImageIO.write(image, format, file);
+        return file;
+    }
+
+    private static int[] pixels(File file) throws Exception {
+        BufferedImage image = ImageIO.read(file);
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    @Test
+    void roundTripsThroughPngAndTiff() throws Exception {
+        ImageEncryptor encryptor = new ImageEncryptor();
+        for (String input : new String[] {"png", "bmp"}) {
+            File plain = writeInput(input);
+            for (String format : new String[] {"png", "tif"}) {
+                File encrypted = dir.resolve("out/" + input + ".enc." + format).toFile();
+                CryptoResult result = encryptor.encrypt(plain, encrypted, PASSWORD, null, null);
+                assertTrue(result.isSuccess());
+                assertEquals(encrypted, result.getOutputFile());
+
+                File decrypted = dir.resolve("out/" + input + ".dec." + input).toFile();
+                encryptor.decrypt(encrypted, decrypted, PASSWORD, null, null);
+                assertArrayEquals(pixels(plain), pixels(decrypted), input + " via " + format);
+            }
+        }
+    }
+
+    @Test
+    void refusesOutputThatCannotKeepTheHeader() throws Exception {
+        File plain = writeInput("png");
+        File encrypted = dir.resolve("encrypted.bmp").toFile();
+        assertThrows(UnsupportedFileException.class,
+                () -> new ImageEncryptor().encrypt(plain, encrypted, PASSWORD, null, null));
+        assertFalse(encrypted.exists());
+    }
+
+    @Test
+    void refusesLossyOutputInEveryFormat() throws Exception {
+        File plain = writeInput("png");
+        ImageCipher legacy = new ImageCipher();
+        legacy.setFormatVersion(ImageCipher.FORMAT_LEGACY);
+        ImageEncryptor encryptor = new ImageEncryptor();
+        for (String format : new String[] {"jpg", "jpeg", "gif"}) {
+            File encrypted = dir.resolve("encrypted." + format).toFile();
+            assertThrows(UnsupportedFileException.class,
+                    () -> encryptor.encrypt(plain, encrypted, PASSWORD, legacy, null), format);
+            assertThrows(UnsupportedFileException.class,
+                    () -> encryptor.encrypt(plain, encrypted, PASSWORD, null, null), format);
+            assertFalse(encrypted.exists(), format);
+        }
+    }
+
+    @Test
+    void legacyImagesDecryptThroughTheDefaultPath() throws Exception {
+        File plain = writeInput("png");
+        ImageCipher legacy = new ImageCipher();
+        legacy.setFormatVersion(ImageCipher.FORMAT_LEGACY);
+        ImageEncryptor encryptor = new ImageEncryptor();
+
+        for (String format : new String[] {"png", "bmp"}) {
+            File encrypted = dir.resolve("legacy." + format).toFile();
+            File decrypted = dir.resolve("decrypted-" + format + ".png").toFile();
+            encryptor.encrypt(plain, encrypted, PASSWORD, legacy, null);
+            encryptor.decrypt(encrypted, decrypted, PASSWORD, null, null);
+            assertArrayEquals(pixels(plain), pixels(decrypted), format);
+        }
+
+        ImageCipher strict = new ImageCipher();
+        strict.setFormatVersion(ImageCipher.FORMAT_KEYSTREAM);
+        assertThrows(CryptoException.class, () -> encryptor.decrypt(dir.resolve("legacy.png").toFile(),
+                dir.resolve("refused.png").toFile(), PASSWORD, strict, null));
+    }
+
+    @Test
+    void rejectsShortPasswordsAndUnknownExtensions() throws Exception {
+        ImageEncryptor encryptor = new ImageEncryptor();
+        File plain = writeInput("png");
+        File out = dir.resolve("out.png").toFile();
+        assertThrows(CryptoException.class, () -> encryptor.encrypt(plain, out, "short", null, null));
+
+        File text = dir.resolve("notes.txt").toFile();
+        assertTrue(text.createNewFile());
+        assertThrows(UnsupportedFileException.class, () -> encryptor.encrypt(text, out, PASSWORD, null, null));
+        assertFalse(encryptor.validate(text));
+        assertTrue(encryptor.validate(plain));
+    }
+}
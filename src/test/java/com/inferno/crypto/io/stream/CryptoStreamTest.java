@@ -0,0 +1,57 @@
+package com.inferno.crypto.io.stream;
+
+import com.inferno.crypto.algorithm.AESCipher;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CryptoStreamTest {
+
+    private static AESCipher cipher(String transformation) {
+        AESCipher cipher = new AESCipher(256);
+        cipher.setKey(new byte[32]);
+        cipher.setPadding(transformation);
+        return cipher;
+    }
+
+    private static byte[] encrypt(AESCipher cipher, byte[] data) throws Exception {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (OutputStream out = new CryptoOutputStream(encrypted, cipher, null)) {
+            out.write(data);
+        }
+        return encrypted.toByteArray();
+    }
+
+    @Test
+    void cbcRoundTrips() throws Exception {
+        AESCipher cipher = cipher("AES/CBC/PKCS5Padding");
+        byte[] data = new byte[100_000];
+        new Random(1).nextBytes(data);
+        try (InputStream in = new CryptoInputStream(new ByteArrayInputStream(encrypt(cipher, data)), cipher, null)) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void gcmStreamsAreRefusedOnBothSides() throws Exception {
+        AESCipher cipher = cipher("AES/GCM/NoPadding");
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> new CryptoOutputStream(encrypted, cipher, null));
+        assertEquals(0, encrypted.size());
+        assertThrows(IllegalArgumentException.class, () -> new CryptoOutputStream(encrypted,
+                cipher.createStreamCipher(Cipher.ENCRYPT_MODE, new byte[cipher.getStreamIVLength()])));
+
+        byte[] sealed = cipher.encrypt(new byte[100], null);
+        assertThrows(IllegalArgumentException.class,
+                () -> new CryptoInputStream(new ByteArrayInputStream(sealed), cipher, null));
+    }
+}
@@ -0,0 +1,95 @@
+package com.inferno.crypto.io.stream;
+
+import com.inferno.crypto.exception.DecryptionFailedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelSegmentedGcmTest {
+
+    private static final int SEGMENT = 1024;
+    private static final Key KEY = new SecretKeySpec(new byte[32], "AES");
+
+    @TempDir
+    Path dir;
+
+    private Path plainFile(int length) throws Exception {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return Files.write(dir.resolve("plain-" + length), data);
+    }
+
+    @Test
+    void roundTripsAcrossParallelism() throws Exception {
+        for (int length : new int[] {0, 100, SEGMENT, 37 * SEGMENT + 5}) {
+            Path plain = plainFile(length);
+            for (int parallelism : new int[] {1, 4}) {
+                Path encrypted = dir.resolve("enc-" + length + "-" + parallelism);
+                Path decrypted = dir.resolve("dec-" + length + "-" + parallelism);
+                AtomicLong progress = new AtomicLong();
+                assertEquals(length, ParallelSegmentedGcm.encrypt(plain, encrypted, KEY, SEGMENT, parallelism,
+                        done -> progress.accumulateAndGet(done, Math::max)));
+                assertEquals(SegmentedGcm.ciphertextLength(length, SEGMENT), Files.size(encrypted));
+                assertEquals(length, progress.get());
+
+                assertEquals(length, ParallelSegmentedGcm.decrypt(encrypted, decrypted, KEY, parallelism, null));
+                assertArrayEquals(Files.readAllBytes(plain), Files.readAllBytes(decrypted));
+            }
+        }
+    }
+
+    @Test
+    void interoperatesWithTheStreamingFormat() throws Exception {
+        Path plain = plainFile(9 * SEGMENT + 300);
+        byte[] data = Files.readAllBytes(plain);
+
+        Path parallel = dir.resolve("parallel");
+        ParallelSegmentedGcm.encrypt(plain, parallel, KEY, SEGMENT, 3, null);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        try (InputStream in = Files.newInputStream(parallel)) {
+            SegmentedGcm.decrypt(in, streamed, KEY);
+        }
+        assertArrayEquals(data, streamed.toByteArray());
+
+        ByteArrayOutputStream sealed = new ByteArrayOutputStream();
+        SegmentedGcm.encrypt(new ByteArrayInputStream(data), sealed, KEY, SEGMENT);
+        Path stream = Files.write(dir.resolve("stream"), sealed.toByteArray());
+        Path decrypted = dir.resolve("decrypted");
+        ParallelSegmentedGcm.decrypt(stream, decrypted, KEY, 3, null);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+    }
+
+    @Test
+    void tamperedOrTruncatedFilesAreRejected() throws Exception {
+        Path plain = plainFile(8 * SEGMENT + 10);
+        Path encrypted = dir.resolve("encrypted");
+        ParallelSegmentedGcm.encrypt(plain, encrypted, KEY, SEGMENT, 4, null);
+        byte[] sealed = Files.readAllBytes(encrypted);
+
+        byte[] tampered = sealed.clone();
+        tampered[SegmentedGcm.HEADER_SIZE + 5 * (SEGMENT + SegmentedGcm.TAG_SIZE) + 1] ^= 1;
+        Path bad = Files.write(dir.resolve("tampered"), tampered);
+        assertThrows(DecryptionFailedException.class,
+                () -> ParallelSegmentedGcm.decrypt(bad, dir.resolve("out1"), KEY, 4, null));
+
+        byte[] truncated = Arrays.copyOf(sealed,
+                SegmentedGcm.HEADER_SIZE + 4 * (SEGMENT + SegmentedGcm.TAG_SIZE));
+        Path shortFile = Files.write(dir.resolve("truncated"), truncated);
+        assertThrows(DecryptionFailedException.class,
+                () -> ParallelSegmentedGcm.decrypt(shortFile, dir.resolve("out2"), KEY, 4, null));
+    }
+}
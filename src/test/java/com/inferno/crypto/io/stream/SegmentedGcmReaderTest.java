@@ -0,0 +1,94 @@
+package com.inferno.crypto.io.stream;
+
+import com.inferno.crypto.exception.DecryptionFailedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SegmentedGcmReaderTest {
+
+    private static final int SEGMENT = 1024;
+    private static final int SEALED = SEGMENT + SegmentedGcm.TAG_SIZE;
+    private static final Key KEY = new SecretKeySpec(new byte[32], "AES");
+
+    @TempDir
+    Path dir;
+
+    private byte[] data;
+
+    private Path encrypted(int length) throws Exception {
+        data = new byte[length];
+        new Random(length).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SegmentedGcm.encrypt(new ByteArrayInputStream(data), out, KEY, SEGMENT);
+        return Files.write(dir.resolve("encrypted-" + length), out.toByteArray());
+    }
+
+    @Test
+    void readsRangesAnywhereInTheFile() throws Exception {
+        try (SegmentedGcmReader reader = new SegmentedGcmReader(encrypted(6 * SEGMENT + 333), KEY)) {
+            assertEquals(data.length, reader.length());
+            int[][] ranges = {
+                    {0, 0}, {0, 10}, {SEGMENT - 3, 6}, {2 * SEGMENT, SEGMENT}, {100, 4 * SEGMENT},
+                    {data.length - 333, 333}, {data.length - 1, 1}, {0, data.length}
+            };
+            for (int[] range : ranges) {
+                assertArrayEquals(Arrays.copyOfRange(data, range[0], range[0] + range[1]),
+                        reader.readRange(range[0], range[1]), range[0] + "+" + range[1]);
+            }
+        }
+    }
+
+    @Test
+    void readStopsAtTheEnd() throws Exception {
+        try (SegmentedGcmReader reader = new SegmentedGcmReader(encrypted(SEGMENT + 10), KEY)) {
+            byte[] buffer = new byte[50];
+            assertEquals(20, reader.read(data.length - 20, buffer, 0, 50));
+            assertArrayEquals(Arrays.copyOfRange(data, data.length - 20, data.length), Arrays.copyOf(buffer, 20));
+            assertEquals(-1, reader.read(data.length, buffer, 0, 50));
+            assertThrows(IllegalArgumentException.class, () -> reader.readRange(data.length - 5, 6));
+        }
+    }
+
+    @Test
+    void tamperedSegmentFailsOnlyWhenRead() throws Exception {
+        Path path = encrypted(4 * SEGMENT);
+        byte[] sealed = Files.readAllBytes(path);
+        sealed[SegmentedGcm.HEADER_SIZE + 2 * SEALED + 9] ^= 1;
+        Files.write(path, sealed);
+        try (SegmentedGcmReader reader = new SegmentedGcmReader(path, KEY)) {
+            assertArrayEquals(Arrays.copyOfRange(data, 0, SEGMENT), reader.readRange(0, SEGMENT));
+            assertArrayEquals(Arrays.copyOfRange(data, 3 * SEGMENT, 4 * SEGMENT), reader.readRange(3 * SEGMENT, SEGMENT));
+            assertThrows(DecryptionFailedException.class, () -> reader.readRange(2 * SEGMENT + 1, 1));
+        }
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws Exception {
+        Path path = encrypted(3 * SEGMENT + 50);
+        byte[] sealed = Files.readAllBytes(path);
+
+        Path atBoundary = Files.write(dir.resolve("boundary"), Arrays.copyOf(sealed, SegmentedGcm.HEADER_SIZE + 2 * SEALED));
+        try (SegmentedGcmReader reader = new SegmentedGcmReader(atBoundary, KEY)) {
+            assertThrows(DecryptionFailedException.class, () -> reader.readRange(SEGMENT, 10));
+        }
+
+        Path inTag = Files.write(dir.resolve("tag"), Arrays.copyOf(sealed, SegmentedGcm.HEADER_SIZE + SEALED + 5));
+        assertThrows(DecryptionFailedException.class, () -> new SegmentedGcmReader(inTag, KEY));
+
+        Path header = Files.write(dir.resolve("header"), Arrays.copyOf(sealed, SegmentedGcm.HEADER_SIZE - 1));
+        assertThrows(DecryptionFailedException.class, () -> new SegmentedGcmReader(header, KEY));
+    }
+}
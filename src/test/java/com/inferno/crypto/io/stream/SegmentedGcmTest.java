@@ -0,0 +1,115 @@
+package com.inferno.crypto.io.stream;
+
+import com.inferno.crypto.exception.DecryptionFailedException;
+import com.inferno.crypto.exception.DecryptionFailedException.DecryptionFailureReason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SegmentedGcmTest {
+
+    private static final int SEGMENT = 1024;
+    private static final int SEALED = SEGMENT + SegmentedGcm.TAG_SIZE;
+    private static final Key KEY = new SecretKeySpec(new byte[32], "AES");
+
+    private static byte[] message(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] encrypt(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length, SegmentedGcm.encrypt(new ByteArrayInputStream(data), out, KEY, SEGMENT));
+        return out.toByteArray();
+    }
+
+    private static byte[] decrypt(byte[] encrypted, Key key) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SegmentedGcm.decrypt(new ByteArrayInputStream(encrypted), out, key);
+        return out.toByteArray();
+    }
+
+    private static void assertRejected(byte[] encrypted, DecryptionFailureReason reason) {
+        DecryptionFailedException e = assertThrows(DecryptionFailedException.class, () -> decrypt(encrypted, KEY));
+        assertEquals(reason, e.getFailureReason());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, SEGMENT - 1, SEGMENT, SEGMENT + 1, 3 * SEGMENT, 5 * SEGMENT + 17})
+    void roundTrips(int length) throws Exception {
+        byte[] data = message(length);
+        byte[] encrypted = encrypt(data);
+        assertEquals(SegmentedGcm.ciphertextLength(length, SEGMENT), encrypted.length);
+        assertEquals(length, SegmentedGcm.plaintextLength(encrypted.length,
+                SegmentedGcm.parseHeader(Arrays.copyOf(encrypted, SegmentedGcm.HEADER_SIZE))));
+        assertArrayEquals(data, decrypt(encrypted, KEY));
+    }
+
+    @Test
+    void truncationAtASegmentBoundaryIsRejected() throws Exception {
+        byte[] encrypted = encrypt(message(3 * SEGMENT + 100));
+        assertRejected(Arrays.copyOf(encrypted, SegmentedGcm.HEADER_SIZE + 2 * SEALED),
+                DecryptionFailureReason.AUTHENTICATION_FAILED);
+    }
+
+    @Test
+    void truncationInsideASegmentIsRejected() throws Exception {
+        byte[] encrypted = encrypt(message(3 * SEGMENT + 100));
+        assertRejected(Arrays.copyOf(encrypted, encrypted.length - 40), DecryptionFailureReason.AUTHENTICATION_FAILED);
+        assertRejected(Arrays.copyOf(encrypted, SegmentedGcm.HEADER_SIZE + SEALED + 5),
+                DecryptionFailureReason.FORMAT_ERROR);
+    }
+
+    @Test
+    void tamperedSegmentsAreRejected() throws Exception {
+        byte[] encrypted = encrypt(message(2 * SEGMENT + 10));
+        for (int pos : new int[] {SegmentedGcm.HEADER_SIZE + 3, SegmentedGcm.HEADER_SIZE + SEALED + 7,
+                encrypted.length - 1}) {
+            byte[] tampered = encrypted.clone();
+            tampered[pos] ^= 1;
+            assertRejected(tampered, DecryptionFailureReason.AUTHENTICATION_FAILED);
+        }
+    }
+
+    @Test
+    void tamperedHeaderIsRejected() throws Exception {
+        byte[] encrypted = encrypt(message(100));
+        byte[] prefix = encrypted.clone();
+        prefix[SegmentedGcm.HEADER_SIZE - 1] ^= 1;
+        assertRejected(prefix, DecryptionFailureReason.AUTHENTICATION_FAILED);
+
+        byte[] magic = encrypted.clone();
+        magic[0] ^= 1;
+        assertThrows(DecryptionFailedException.class, () -> decrypt(magic, KEY));
+    }
+
+    @Test
+    void reorderedSegmentsAreRejected() throws Exception {
+        byte[] encrypted = encrypt(message(3 * SEGMENT));
+        byte[] swapped = encrypted.clone();
+        int first = SegmentedGcm.HEADER_SIZE;
+        System.arraycopy(encrypted, first + SEALED, swapped, first, SEALED);
+        System.arraycopy(encrypted, first, swapped, first + SEALED, SEALED);
+        assertRejected(swapped, DecryptionFailureReason.AUTHENTICATION_FAILED);
+    }
+
+    @Test
+    void wrongKeyIsRejected() throws Exception {
+        byte[] encrypted = encrypt(message(100));
+        byte[] other = new byte[32];
+        other[0] = 1;
+        assertThrows(DecryptionFailedException.class, () -> decrypt(encrypted, new SecretKeySpec(other, "AES")));
+    }
+}
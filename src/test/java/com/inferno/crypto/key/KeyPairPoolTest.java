@@ -0,0 +1,80 @@
+package com.inferno.crypto.key;
+
+import com.inferno.crypto.algorithm.RSACipher;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyPairPoolTest {
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void missGeneratesInlineThenBackgroundRefillServesHits() throws Exception {
+        try (KeyPairPool pool = new KeyPairPool(2, 1, 0)) {
+            assertNotNull(pool.take("RSA", 1024));
+            assertEquals(1, pool.getMisses());
+            assertEquals(0, pool.getHits());
+
+            await(() -> pool.available("RSA", 1024) == 2 && pool.getGenerated() == 2);
+
+            KeyPair pair = pool.take("rsa", 1024);
+            assertNotNull(pair);
+            assertEquals(1, pool.getHits());
+            await(() -> pool.available("RSA", 1024) == 2 && pool.getGenerated() == 3);
+        }
+    }
+
+    @Test
+    void warmFillsAheadOfUse() throws Exception {
+        try (KeyPairPool pool = new KeyPairPool(3, 2, 0)) {
+            pool.warm("EC", 256);
+            await(() -> pool.available("EC", 256) == 3);
+            pool.take("EC", 256);
+            assertEquals(0, pool.getMisses());
+            assertEquals(1, pool.getHits());
+        }
+    }
+
+    @Test
+    void closeStopsRefilling() throws Exception {
+        KeyPairPool pool = new KeyPairPool(2, 1, 0);
+        pool.close();
+        assertNotNull(pool.take("EC", 256));
+        assertNotNull(pool.take("EC", 256));
+        Thread.sleep(200);
+        assertEquals(2, pool.getMisses());
+        assertEquals(0, pool.getGenerated());
+        assertEquals(0, pool.available("EC", 256));
+    }
+
+    @Test
+    void pooledPairsEncryptAndDecrypt() throws Exception {
+        try (KeyPairPool pool = new KeyPairPool(1, 1, 0)) {
+            pool.warm("RSA", 2048);
+            await(() -> pool.available("RSA", 2048) == 1);
+
+            RSACipher cipher = new RSACipher(2048);
+            cipher.setKeyPairPool(pool);
+            KeyPair pair = cipher.generateKeyPair(2048);
+            assertEquals(1, pool.getHits());
+            assertSame(pair.getPublic(), cipher.getPublicKey());
+
+            byte[] data = "pooled key pair".getBytes();
+            assertArrayEquals(data, cipher.decrypt(cipher.encrypt(data, pair.getPublic()), pair.getPrivate()));
+        }
+    }
+}